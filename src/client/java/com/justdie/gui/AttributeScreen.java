@@ -6,16 +6,17 @@ import com.justdie.attribute.AttributeHelper;
 import com.justdie.attribute.JustDyingAttribute;
 import com.justdie.attribute.JustDyingAttributeType;
 import com.justdie.network.ClientAttributePackets;
+import com.justdie.network.ClientAttributePrediction;
 import com.justdie.attribute.LevelExchangeManager;
 import net.minecraft.client.gui.DrawContext;
 import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.gui.tooltip.Tooltip;
 import net.minecraft.client.gui.widget.ButtonWidget;
 import net.minecraft.client.gui.screen.ingame.InventoryScreen;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.item.ItemStack;
-import net.minecraft.client.gui.Element;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -62,6 +63,10 @@ public class AttributeScreen extends Screen {
     private ButtonWidget downButton;
     // 等级兑换按钮
     private ButtonWidget exchangeButton;
+    // 当前页的增加按钮
+    private final List<ButtonWidget> increaseButtons = new ArrayList<>();
+    // 上次刷新时客户端属性存储的版本号
+    private int seenVersion = -1;
 
     // 渲染缓存
     private int lastWidth = 0;
@@ -91,9 +96,7 @@ public class AttributeScreen extends Screen {
         this.attributes = allAttributes;
 
         // 打开面板时请求服务器同步最新数据
-        for (JustDyingAttribute attribute : attributes) {
-            ClientAttributePackets.sendSyncRequestPacket(attribute.getId());
-        }
+        ClientAttributePackets.sendSyncRequestPacket();
 
         // 计算实际GUI高度
         updateGUIHeight();
@@ -125,6 +128,7 @@ public class AttributeScreen extends Screen {
         updateLayoutCache();
 
         // 更新数据
+        this.seenVersion = ClientAttributePrediction.getVersion();
         this.availablePoints = AttributeHelper.getAvailablePoints(player);
         if (JustDying.getConfig().levelExchange.enableLevelExchange) {
             this.requiredLevel = LevelExchangeManager.calculateRequiredLevel(player);
@@ -190,7 +194,12 @@ public class AttributeScreen extends Screen {
                     exchangeButtonY,
                     160, BUTTON_HEIGHT,
                     buttonText,
-                    button -> ClientAttributePackets.sendExchangeLevelPacket()));
+                    button -> {
+                        // 按住Shift时兑换当前等级能负担的全部属性点，点数在本地立即更新
+                        ClientAttributePrediction.predictExchange(player, Screen.hasShiftDown());
+                        refreshScreen();
+                    }));
+            exchangeButton.setTooltip(Tooltip.of(Text.translatable("gui.justdying.exchange_level.tooltip")));
         }
 
         // 为每个可见的属性添加增减按钮
@@ -235,12 +244,12 @@ public class AttributeScreen extends Screen {
             }
 
             // 增加按钮
-            this.addDrawableChild(new AttributeButton(
+            increaseButtons.add(this.addDrawableChild(new AttributeButton(
                     buttonX + BUTTON_WIDTH + BUTTON_SPACING,
                     attributeY + 3, // 垂直居中
                     BUTTON_WIDTH, BUTTON_HEIGHT,
                     Text.literal("+"),
-                    button -> editAttribute(attribute, 1)));
+                    button -> editAttribute(attribute, 1))));
         }
     }
 
@@ -255,15 +264,9 @@ public class AttributeScreen extends Screen {
             downButton.active = scrollOffset + ATTRS_PER_PAGE < attributes.size();
         }
 
-        // 更新增减按钮状态 - 遍历所有子元素
-        for (Element element : this.children()) {
-            if (element instanceof ButtonWidget) {
-                ButtonWidget button = (ButtonWidget) element;
-                // 根据按钮文本判断类型
-                if (button.getMessage().getString().equals("+")) {
-                    button.active = availablePoints > 0;
-                }
-            }
+        // 更新增加按钮状态
+        for (ButtonWidget button : increaseButtons) {
+            button.active = availablePoints > 0;
         }
 
         // 更新等级兑换按钮状态
@@ -277,10 +280,15 @@ public class AttributeScreen extends Screen {
      */
     private void resetButtons() {
         this.clearChildren();
+        increaseButtons.clear();
     }
 
     @Override
     public void render(DrawContext context, int mouseX, int mouseY, float delta) {
+        // 属性存储有变化时每帧最多刷新一次
+        if (ClientAttributePrediction.getVersion() != seenVersion) {
+            refreshScreen();
+        }
         // 绘制默认的深色背景
         this.renderBackground(context);
         // 更新页面布局缓存
@@ -444,20 +452,28 @@ public class AttributeScreen extends Screen {
 
     /**
      * 刷新属性面板
-     * 更新数据和界面元素
+     * 从客户端属性存储读取数据，原地更新已有按钮的文本和状态，不重建界面
      */
     public void refreshScreen() {
+        this.seenVersion = ClientAttributePrediction.getVersion();
         // 更新数据
         this.availablePoints = AttributeHelper.getAvailablePoints(player);
         if (JustDying.getConfig().levelExchange.enableLevelExchange) {
             this.requiredLevel = LevelExchangeManager.calculateRequiredLevel(player);
         }
-        // 更新GUI高度
-        updateGUIHeight();
-        // 更新布局缓存
-        updateLayoutCache();
-        // 重新初始化界面
-        resetAndAddButtons();
+        if (exchangeButton != null) {
+            exchangeButton.setMessage(Text.translatable("gui.justdying.exchange_level", this.requiredLevel));
+        }
+        updateButtonStates();
+    }
+
+    /**
+     * 每tick发送一次累积的加点请求
+     */
+    @Override
+    public void tick() {
+        super.tick();
+        ClientAttributePrediction.flush();
     }
 
     /**
@@ -466,6 +482,8 @@ public class AttributeScreen extends Screen {
     @Override
     public void removed() {
         super.removed();
+        // 关闭前发送尚未发送的加点请求
+        ClientAttributePrediction.flush();
         // 清理缓存
         itemStackCache.clear();
     }
@@ -488,28 +506,20 @@ public class AttributeScreen extends Screen {
 
     /**
      * 增加或者减少属性点
+     * 操作在本地立即生效，同一tick内的点击合并为一个网络包，服务器同步后校正
      */
     private void editAttribute(JustDyingAttribute attribute, int type) {
         int currentValue = AttributeHelper.getAttributeValue(player, attribute.getId());
         // 如果是增加的话
         if (type == 1 && availablePoints > 0 && currentValue < attribute.getMaxValue()) {
-            // 发送增加属性点的网络包
-            ClientAttributePackets.sendIncreasePacket(attribute.getId());
-            // 客户端预测性更新
-            AttributeHelper.setAttributeValue(player, attribute.getId(), currentValue + 1);
-            AttributeHelper.usePoints(player, 1);
+            ClientAttributePrediction.predictAllocation(player, attribute.getId(), 1);
         }
         // 如果是减少的话
         if (type == 0 && currentValue > attribute.getMinValue()) {
-            // 发送减少属性点的网络包
-            ClientAttributePackets.sendDecreasePacket(attribute.getId());
-            // 客户端预测性更新
-            AttributeHelper.setAttributeValue(player, attribute.getId(), currentValue - 1);
-            AttributeHelper.addPoints(player, 1);
+            ClientAttributePrediction.predictAllocation(player, attribute.getId(), -1);
         }
-        this.availablePoints = AttributeHelper.getAvailablePoints(player);
         // 刷新界面
-        updateButtonStates();
+        refreshScreen();
     }
 
     /**
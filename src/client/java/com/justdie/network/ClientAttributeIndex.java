@@ -0,0 +1,80 @@
+package com.justdie.network;
+
+import com.justdie.JustDying;
+import com.justdie.attribute.AttributeManager;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.util.Identifier;
+
+import java.util.Arrays;
+
+/**
+ * 客户端属性索引映射
+ * 保存服务器在加入时发送的索引表，把服务器索引转换为客户端本地的属性索引，
+ * 客户端缺少的属性映射为-1并在同步时忽略
+ */
+@Environment(EnvType.CLIENT)
+public final class ClientAttributeIndex {
+    private static final int[] EMPTY = new int[0];
+
+    // 服务器索引 -> 客户端索引
+    private static int[] serverToClient = EMPTY;
+    // 客户端索引 -> 服务器索引
+    private static int[] clientToServer = EMPTY;
+
+    private ClientAttributeIndex() {
+    }
+
+    /**
+     * 应用服务器发送的索引表
+     *
+     * @param serverIds 按服务器索引顺序排列的属性ID
+     */
+    static void apply(Identifier[] serverIds) {
+        int[] toClient = new int[serverIds.length];
+        int[] toServer = new int[AttributeManager.getAttributeCount()];
+        Arrays.fill(toServer, -1);
+
+        for (int i = 0; i < serverIds.length; i++) {
+            int clientIndex = AttributeManager.getAttributeIndex(serverIds[i]);
+            toClient[i] = clientIndex;
+            if (clientIndex >= 0) {
+                toServer[clientIndex] = i;
+            } else {
+                JustDying.LOGGER.warn("服务器属性 {} 在客户端不存在，将忽略其同步", serverIds[i]);
+            }
+        }
+
+        serverToClient = toClient;
+        clientToServer = toServer;
+    }
+
+    /**
+     * 服务器索引转换为客户端索引
+     *
+     * @param serverIndex 服务器索引
+     * @return 客户端索引，未知时返回-1
+     */
+    public static int toClient(int serverIndex) {
+        int[] mapping = serverToClient;
+        return serverIndex >= 0 && serverIndex < mapping.length ? mapping[serverIndex] : -1;
+    }
+
+    /**
+     * 客户端索引转换为服务器索引
+     *
+     * @param clientIndex 客户端索引
+     * @return 服务器索引，未知时返回-1
+     */
+    public static int toServer(int clientIndex) {
+        int[] mapping = clientToServer;
+        return clientIndex >= 0 && clientIndex < mapping.length ? mapping[clientIndex] : -1;
+    }
+
+    /**
+     * 服务器属性数量
+     */
+    public static int getServerCount() {
+        return serverToClient.length;
+    }
+}
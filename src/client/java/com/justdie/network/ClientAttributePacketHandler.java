@@ -1,8 +1,6 @@
 package com.justdie.network;
 
 import com.justdie.JustDying;
-import com.justdie.attribute.AttributeHelper;
-import com.justdie.gui.AttributeScreen;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
@@ -10,7 +8,7 @@ import net.minecraft.util.Identifier;
 
 /**
  * 客户端属性同步包处理器
- * 用于接收服务器发送的属性更新
+ * 用于接收服务器发送的属性更新，同步结果写入{@link ClientAttributePrediction}，属性面板按版本号自行刷新
  */
 @Environment(EnvType.CLIENT)
 public class ClientAttributePacketHandler {
@@ -19,37 +17,71 @@ public class ClientAttributePacketHandler {
      * 注册客户端网络包处理器
      */
     public static void register() {
-        // 注册属性同步处理器
-        ClientPlayNetworking.registerGlobalReceiver(AttributeUpdatePacket.SYNC_ATTRIBUTES_ID, (client, handler, buf, responseSender) -> {
-            String attributeId = buf.readString();
-            int attributeValue = buf.readInt();
-            int availablePoints = buf.readInt();
+        // 注册属性索引表处理器
+        ClientPlayNetworking.registerGlobalReceiver(AttributeUpdatePacket.ATTRIBUTE_INDEX_ID, (client, handler, buf, responseSender) -> {
+            Identifier[] serverIds = new Identifier[buf.readVarInt()];
+            for (int i = 0; i < serverIds.length; i++) {
+                serverIds[i] = buf.readIdentifier();
+            }
+            
+            // 与后续同步包在同一队列中按顺序执行
+            client.execute(() -> {
+                ClientAttributeIndex.apply(serverIds);
+                ClientAttributePrediction.reset();
+            });
+        });
+        
+        // 注册全量属性同步处理器
+        ClientPlayNetworking.registerGlobalReceiver(AttributeUpdatePacket.SYNC_ALL_ATTRIBUTES_ID, (client, handler, buf, responseSender) -> {
+            int acknowledgedSeq = buf.readVarInt();
+            int availablePoints = buf.readVarInt();
+            int[] values = new int[buf.readVarInt()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = buf.readVarInt();
+            }
             
             // 在客户端线程上执行属性更新
             client.execute(() -> {
                 if (client.player != null) {
-                    Identifier id = new Identifier(attributeId);
-                    
-                    // 添加调试日志
-                    JustDying.LOGGER.debug("Received attribute sync from server: {} = {}, available points = {}", 
-                            attributeId, attributeValue, availablePoints);
+                    JustDying.LOGGER.debug("Received full attribute sync from server: {} attributes, available points = {}", 
+                            values.length, availablePoints);
                     
-                    // 检查是否是防御属性
-                    boolean isDefenseAttribute = id.getPath().equals("defense");
-                    if (isDefenseAttribute) {
-                        JustDying.LOGGER.debug("Special handling for defense attribute on client");
-                    }
-                    
-                    // 更新客户端的属性值和可用点数
-                    AttributeHelper.setAttributeValue(client.player, id, attributeValue);
-                    AttributeHelper.setAvailablePoints(client.player, availablePoints);
-                    
-                    // 如果当前屏幕是属性屏幕，刷新它
-                    if (client.currentScreen instanceof AttributeScreen) {
-                        ((AttributeScreen) client.currentScreen).refreshScreen();
-                    }
+                    ClientAttributePrediction.onFullSync(client.player, acknowledgedSeq, availablePoints, values);
+                }
+            });
+        });
+        
+        // 注册增量属性同步处理器
+        ClientPlayNetworking.registerGlobalReceiver(AttributeUpdatePacket.SYNC_ATTRIBUTE_DELTA_ID, (client, handler, buf, responseSender) -> {
+            int acknowledgedSeq = buf.readVarInt();
+            int availablePoints = buf.readVarInt();
+            int count = buf.readVarInt();
+            int[] indices = new int[count];
+            int[] values = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = buf.readVarInt();
+                values[i] = buf.readVarInt();
+            }
+            
+            // 在客户端线程上执行属性更新
+            client.execute(() -> {
+                if (client.player != null) {
+                    ClientAttributePrediction.onDeltaSync(client.player, acknowledgedSeq, availablePoints, indices, values);
+                }
+            });
+        });
+        
+        // 注册可用点数同步处理器
+        ClientPlayNetworking.registerGlobalReceiver(AttributeUpdatePacket.SYNC_POINTS_ID, (client, handler, buf, responseSender) -> {
+            int acknowledgedSeq = buf.readVarInt();
+            int availablePoints = buf.readVarInt();
+            
+            // 在客户端线程上执行更新
+            client.execute(() -> {
+                if (client.player != null) {
+                    ClientAttributePrediction.onPointsSync(client.player, acknowledgedSeq, availablePoints);
                 }
             });
         });
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
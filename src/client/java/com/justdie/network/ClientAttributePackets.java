@@ -3,7 +3,6 @@ package com.justdie.network;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.minecraft.network.PacketByteBuf;
-import net.minecraft.util.Identifier;
 
 /**
  * 客户端属性更新网络包
@@ -11,43 +10,58 @@ import net.minecraft.util.Identifier;
  */
 public class ClientAttributePackets {
     /**
-     * 发送增加属性请求
+     * 发送批量加点请求
      * 
-     * @param attributeId 属性ID
+     * @param seq 请求序号
+     * @param deltas 按服务器属性索引排列的增量，为0的条目不发送
      */
-    public static void sendIncreasePacket(Identifier attributeId) {
+    public static void sendAllocationPacket(int seq, int[] deltas) {
+        int count = 0;
+        for (int delta : deltas) {
+            if (delta != 0) {
+                count++;
+            }
+        }
+        
         PacketByteBuf buf = PacketByteBufs.create();
-        buf.writeString(attributeId.toString());
-        ClientPlayNetworking.send(AttributeUpdatePacket.INCREASE_ATTRIBUTE_ID, buf);
+        buf.writeVarInt(seq);
+        buf.writeVarInt(count);
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] != 0) {
+                buf.writeVarInt(i);
+                buf.writeVarInt(deltas[i]);
+            }
+        }
+        ClientPlayNetworking.send(AttributeUpdatePacket.ALLOCATE_ATTRIBUTES_ID, buf);
     }
-    
+
     /**
-     * 发送减少属性请求
+     * 发送等级兑换属性点请求
      * 
-     * @param attributeId 属性ID
+     * @param seq 请求序号
      */
-    public static void sendDecreasePacket(Identifier attributeId) {
+    public static void sendExchangeLevelPacket(int seq) {
         PacketByteBuf buf = PacketByteBufs.create();
-        buf.writeString(attributeId.toString());
-        ClientPlayNetworking.send(AttributeUpdatePacket.DECREASE_ATTRIBUTE_ID, buf);
+        buf.writeVarInt(seq);
+        ClientPlayNetworking.send(AttributeUpdatePacket.EXCHANGE_LEVEL_ID, buf);
     }
 
     /**
-     * 发送等级兑换属性点请求
+     * 发送批量等级兑换请求，兑换当前等级能负担的全部属性点
+     * 
+     * @param seq 请求序号
      */
-    public static void sendExchangeLevelPacket() {
+    public static void sendExchangeMaxLevelPacket(int seq) {
         PacketByteBuf buf = PacketByteBufs.create();
-        ClientPlayNetworking.send(AttributeUpdatePacket.EXCHANGE_LEVEL_ID, buf);
+        buf.writeVarInt(seq);
+        ClientPlayNetworking.send(AttributeUpdatePacket.EXCHANGE_LEVEL_MAX_ID, buf);
     }
 
     /**
-     * 发送同步请求
-     * 
-     * @param attributeId 属性ID
+     * 发送同步请求，服务器以一个全量同步包回复
      */
-    public static void sendSyncRequestPacket(Identifier attributeId) {
+    public static void sendSyncRequestPacket() {
         PacketByteBuf buf = PacketByteBufs.create();
-        buf.writeString(attributeId.toString());
         ClientPlayNetworking.send(AttributeUpdatePacket.SYNC_REQUEST_ID, buf);
     }
 } 
\ No newline at end of file
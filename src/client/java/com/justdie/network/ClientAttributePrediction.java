@@ -0,0 +1,298 @@
+package com.justdie.network;
+
+import com.justdie.attribute.AttributeComponents;
+import com.justdie.attribute.AttributeHelper;
+import com.justdie.attribute.AttributeManager;
+import com.justdie.attribute.JustDyingAttribute;
+import com.justdie.attribute.LevelExchangeManager;
+import com.justdie.attribute.PlayerAttributeComponent;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.Identifier;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 客户端属性状态存储和属性点操作预测
+ * 加点、减点和等级兑换先在本地立即生效，再带着序号发送给服务器。
+ * 这里单独保存服务器发来的权威数据，收到同步后以权威数据重建本地属性，丢弃服务器已确认的预测，
+ * 再把尚未确认的预测按原顺序重放，服务器拒绝的操作因此会在确认后自然消失
+ *
+ * 每个同步包作为一个整体应用，应用完成后版本号加一；界面每帧比较版本号，
+ * 一帧内收到多少个同步包都只刷新一次
+ *
+ * 只在客户端线程访问
+ */
+@Environment(EnvType.CLIENT)
+public final class ClientAttributePrediction {
+    // 已发送但服务器尚未确认的预测
+    private static final Deque<Prediction> UNACKNOWLEDGED = new ArrayDeque<>();
+    // 本tick内尚未发送的加点增量，按服务器属性索引排列
+    private static int[] unsentDeltas = new int[0];
+    private static boolean hasUnsent = false;
+    private static int nextSeq = 1;
+    // 服务器权威数据，按服务器属性索引排列
+    private static int[] serverValues = new int[0];
+    private static int serverPoints = 0;
+    // 本地属性状态的版本号，每次整体变化后递增
+    private static int version = 0;
+
+    private ClientAttributePrediction() {
+    }
+
+    /**
+     * 获取本地属性状态的版本号
+     *
+     * @return 版本号，与上次读取的值不同说明属性或可用点数已变化
+     */
+    public static int getVersion() {
+        return version;
+    }
+
+    /**
+     * 清空所有预测状态，收到新的索引表（即加入服务器）时调用
+     */
+    static void reset() {
+        UNACKNOWLEDGED.clear();
+        unsentDeltas = new int[ClientAttributeIndex.getServerCount()];
+        hasUnsent = false;
+        nextSeq = 1;
+        serverValues = new int[ClientAttributeIndex.getServerCount()];
+        serverPoints = 0;
+    }
+
+    /**
+     * 收到全量同步
+     *
+     * @param player 玩家
+     * @param acknowledgedSeq 服务器已结算的最大序号
+     * @param points 可用点数
+     * @param values 按服务器索引排列的全部属性值
+     */
+    static void onFullSync(PlayerEntity player, int acknowledgedSeq, int points, int[] values) {
+        serverValues = values;
+        serverPoints = points;
+        reconcile(player, acknowledgedSeq);
+    }
+
+    /**
+     * 收到增量同步
+     *
+     * @param player 玩家
+     * @param acknowledgedSeq 服务器已结算的最大序号
+     * @param points 可用点数
+     * @param indices 变化的服务器属性索引
+     * @param values 对应的新值
+     */
+    static void onDeltaSync(PlayerEntity player, int acknowledgedSeq, int points, int[] indices, int[] values) {
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] >= 0 && indices[i] < serverValues.length) {
+                serverValues[indices[i]] = values[i];
+            }
+        }
+        serverPoints = points;
+        reconcile(player, acknowledgedSeq);
+    }
+
+    /**
+     * 收到可用点数同步
+     *
+     * @param player 玩家
+     * @param acknowledgedSeq 服务器已结算的最大序号
+     * @param points 可用点数
+     */
+    static void onPointsSync(PlayerEntity player, int acknowledgedSeq, int points) {
+        serverPoints = points;
+        reconcile(player, acknowledgedSeq);
+    }
+
+    /**
+     * 预测一次加点或减点，校验通过时立即修改本地数据，在下次{@link #flush()}时发送
+     *
+     * @param player 玩家
+     * @param attributeId 属性ID
+     * @param delta 增量，正数为加点，负数为减点
+     * @return 本地是否接受了这次操作
+     */
+    public static boolean predictAllocation(PlayerEntity player, Identifier attributeId, int delta) {
+        int serverIndex = ClientAttributeIndex.toServer(AttributeManager.getAttributeIndex(attributeId));
+        if (serverIndex < 0) {
+            return false;
+        }
+
+        int[] single = new int[ClientAttributeIndex.getServerCount()];
+        single[serverIndex] = delta;
+        if (!applyAllocation(player, single)) {
+            return false;
+        }
+
+        if (unsentDeltas.length != single.length) {
+            unsentDeltas = new int[single.length];
+        }
+        unsentDeltas[serverIndex] += delta;
+        hasUnsent = true;
+        version++;
+        return true;
+    }
+
+    /**
+     * 预测一次等级兑换并立即发送
+     * 只预测可用点数，等级由原版经验同步更新
+     *
+     * @param player 玩家
+     * @param max 是否兑换当前等级能负担的全部属性点
+     */
+    public static void predictExchange(PlayerEntity player, boolean max) {
+        // 保证服务器按点击顺序结算
+        flush();
+
+        int points;
+        if (max) {
+            points = LevelExchangeManager.calculateAffordablePoints(player);
+        } else {
+            points = player.experienceLevel >= LevelExchangeManager.calculateRequiredLevel(player) ? 1 : 0;
+        }
+
+        int seq = nextSeq++;
+        if (points > 0) {
+            AttributeHelper.setAvailablePoints(player, AttributeHelper.getAvailablePoints(player) + points);
+        }
+        UNACKNOWLEDGED.addLast(new Prediction(seq, null, points));
+        version++;
+
+        if (max) {
+            ClientAttributePackets.sendExchangeMaxLevelPacket(seq);
+        } else {
+            ClientAttributePackets.sendExchangeLevelPacket(seq);
+        }
+    }
+
+    /**
+     * 把本tick累积的加点增量作为一个批量请求发送
+     */
+    public static void flush() {
+        if (!hasUnsent) {
+            return;
+        }
+        hasUnsent = false;
+
+        int[] deltas = unsentDeltas;
+        unsentDeltas = new int[deltas.length];
+        if (isEmpty(deltas)) {
+            return;
+        }
+
+        int seq = nextSeq++;
+        UNACKNOWLEDGED.addLast(new Prediction(seq, deltas, 0));
+        ClientAttributePackets.sendAllocationPacket(seq, deltas);
+    }
+
+    /**
+     * 用权威数据重建本地属性，丢弃已确认的预测并重放其余预测
+     *
+     * @param player 玩家
+     * @param acknowledgedSeq 服务器已结算的最大序号
+     */
+    private static void reconcile(PlayerEntity player, int acknowledgedSeq) {
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        for (int i = 0; i < serverValues.length; i++) {
+            int clientIndex = ClientAttributeIndex.toClient(i);
+            if (clientIndex >= 0) {
+                component.setAttributeValue(clientIndex, serverValues[i]);
+            }
+        }
+        AttributeHelper.setAvailablePoints(player, serverPoints);
+
+        while (!UNACKNOWLEDGED.isEmpty() && UNACKNOWLEDGED.peekFirst().seq <= acknowledgedSeq) {
+            UNACKNOWLEDGED.removeFirst();
+        }
+
+        for (Prediction prediction : UNACKNOWLEDGED) {
+            if (prediction.deltas != null) {
+                applyAllocation(player, prediction.deltas);
+            }
+            if (prediction.points > 0) {
+                AttributeHelper.setAvailablePoints(player, AttributeHelper.getAvailablePoints(player) + prediction.points);
+            }
+        }
+
+        if (hasUnsent) {
+            applyAllocation(player, unsentDeltas);
+        }
+        version++;
+    }
+
+    /**
+     * 按服务器的结算规则在本地应用增量：先减点返还属性点，再按可用点数加点
+     *
+     * @return 是否有任何属性发生变化
+     */
+    private static boolean applyAllocation(PlayerEntity player, int[] deltas) {
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        int availablePoints = AttributeHelper.getAvailablePoints(player);
+        int initialPoints = availablePoints;
+        boolean changed = false;
+
+        for (int i = 0; i < deltas.length; i++) {
+            JustDyingAttribute attribute = deltas[i] < 0 ? getAttribute(i) : null;
+            if (attribute == null) {
+                continue;
+            }
+
+            int clientIndex = attribute.getIndex();
+            int currentValue = component.getAttributeValue(clientIndex);
+            int amount = Math.min(-deltas[i], currentValue - attribute.getMinValue());
+            if (amount > 0) {
+                component.setAttributeValue(clientIndex, currentValue - amount);
+                availablePoints += amount;
+                changed = true;
+            }
+        }
+
+        for (int i = 0; i < deltas.length; i++) {
+            JustDyingAttribute attribute = deltas[i] > 0 && availablePoints > 0 ? getAttribute(i) : null;
+            if (attribute == null) {
+                continue;
+            }
+
+            int clientIndex = attribute.getIndex();
+            int currentValue = component.getAttributeValue(clientIndex);
+            int amount = Math.min(Math.min(deltas[i], attribute.getMaxValue() - currentValue), availablePoints);
+            if (amount > 0) {
+                component.setAttributeValue(clientIndex, currentValue + amount);
+                availablePoints -= amount;
+                changed = true;
+            }
+        }
+
+        if (availablePoints != initialPoints) {
+            AttributeHelper.setAvailablePoints(player, availablePoints);
+        }
+        return changed;
+    }
+
+    private static JustDyingAttribute getAttribute(int serverIndex) {
+        return AttributeManager.getAttributeByIndex(ClientAttributeIndex.toClient(serverIndex));
+    }
+
+    private static boolean isEmpty(int[] deltas) {
+        for (int delta : deltas) {
+            if (delta != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 一次已发送的预测操作
+     *
+     * @param seq 请求序号
+     * @param deltas 加点增量，兑换操作为null
+     * @param points 兑换预测得到的属性点
+     */
+    private record Prediction(int seq, int[] deltas, int points) {
+    }
+}
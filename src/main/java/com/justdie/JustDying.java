@@ -3,7 +3,7 @@ package com.justdie;
 import com.justdie.affix.AffixEventHandler;
 import com.justdie.affix.AffixManager;
 import com.justdie.attribute.AttributeManager;
-import com.justdie.attribute.AttributeHelper;
+import com.justdie.attribute.PlayerAttributeData;
 import com.justdie.boss.registry.BossRegistry;
 import com.justdie.command.AttributeCommands;
 import com.justdie.command.AffixCommand;
@@ -12,16 +12,14 @@ import com.justdie.config.JustDyingConfig;
 import com.justdie.network.AttributeUpdatePacket;
 import com.justdie.item.AttributeCapItems;
 import com.justdie.item.AttributeCapItemHandler;
+import com.justdie.item.ItemMetadataIndex;
 import com.justdie.item.ModItems;
 import com.justdie.item.ModItemGroup;
 import me.shedaniel.autoconfig.AutoConfig;
 import me.shedaniel.autoconfig.serializer.JanksonConfigSerializer;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
-import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
-import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
-import net.minecraft.network.PacketByteBuf;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
@@ -107,6 +105,9 @@ public class JustDying implements ModInitializer {
 		// 注册网络包处理器
 		AttributeUpdatePacket.register();
 		
+		// 注册原版属性的批量刷新
+		PlayerAttributeData.register();
+		
 		// 注册玩家加入服务器事件，同步所有属性数据
 		registerPlayerJoinEvent();
 	}
@@ -241,6 +242,9 @@ public class JustDying implements ModInitializer {
 		
 		// 注册属性Cap物品使用处理器
 		AttributeCapItemHandler.register();
+		
+		// 注册表冻结后重建物品元数据索引
+		ItemMetadataIndex.register();
 	}
 	
 	/**
@@ -277,17 +281,9 @@ public class JustDying implements ModInitializer {
 			return;
 		}
 		
-		// 使用批处理方式减少网络开销
-		AttributeManager.getAllAttributes().forEach(attribute -> {
-			Identifier attributeId = attribute.getId();
-			
-			PacketByteBuf buf = PacketByteBufs.create();
-			buf.writeString(attributeId.toString());
-			buf.writeInt(AttributeHelper.getAttributeValue(player, attributeId));
-			buf.writeInt(AttributeHelper.getAvailablePoints(player));
-			
-			ServerPlayNetworking.send(player, AttributeUpdatePacket.SYNC_ATTRIBUTES_ID, buf);
-		});
+		// 先发送索引表，之后的全量同步只需一个包
+		AttributeUpdatePacket.sendAttributeIndex(player);
+		AttributeUpdatePacket.syncAllAttributesToClient(player);
 	}
 
 	/**
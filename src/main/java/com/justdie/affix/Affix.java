@@ -1,6 +1,7 @@
 package com.justdie.affix;
 
 import com.justdie.JustDying;
+import com.justdie.item.ItemMetadataIndex;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
@@ -9,14 +10,6 @@ import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
-import net.minecraft.item.Item;
-import net.minecraft.item.SwordItem;
-import net.minecraft.item.AxeItem;
-import net.minecraft.item.PickaxeItem;
-import net.minecraft.item.ShovelItem;
-import net.minecraft.item.HoeItem;
-import net.minecraft.item.Items;
-import net.minecraft.item.ArmorItem;
 import net.minecraft.entity.EquipmentSlot;
 
 import java.util.ArrayList;
@@ -56,6 +49,12 @@ public class Affix {
     private final List<AffixEffect> effects;
     private UUID uuid;
     private String itemType = ITEM_TYPE_ANY;
+    private AffixRarity rarity = AffixRarity.COMMON;
+    // 按触发条件分组的效果，下标为AffixEffectTrigger的序号
+    private AffixEffect[][] effectsByTrigger;
+    
+    private static final AffixEffectTrigger[] TRIGGERS = AffixEffectTrigger.values();
+    private static final AffixEffect[] NO_EFFECTS = new AffixEffect[0];
     
     /**
      * 创建一个新的词缀
@@ -75,18 +74,30 @@ public class Affix {
     
     /**
      * 从NBT数据创建词缀
+     * 精简格式只保存词缀ID，其余定义从{@link AffixRegistry}解析；
+     * 旧版完整格式的词缀在注册表中存在时同样使用注册表中的定义，否则按保存的完整数据解码
      * 
      * @param nbt NBT数据
-     * @return 词缀实例，如果数据无效则返回null
+     * @return 词缀实例，如果数据无效或词缀未注册则返回null
      */
     public static Affix fromNbt(NbtCompound nbt) {
-        if (nbt == null || !nbt.contains(AFFIX_ID_KEY) || !nbt.contains(AFFIX_NAME_KEY)) {
+        if (nbt == null || !nbt.contains(AFFIX_ID_KEY)) {
             JustDying.LOGGER.warn("尝试从无效的NBT数据创建词缀");
             return null;
         }
         
         try {
             Identifier id = new Identifier(nbt.getString(AFFIX_ID_KEY));
+            Affix registered = AffixRegistry.getAffix(id);
+            if (registered != null) {
+                return registered;
+            }
+            
+            if (!isLegacyEntry(nbt)) {
+                JustDying.AFFIX_LOGGER.debug("Affix {} is not registered, ignoring it", id);
+                return null;
+            }
+            
             String name = nbt.getString(AFFIX_NAME_KEY);
             Formatting formatting = Formatting.byName(nbt.getString(AFFIX_FORMATTING_KEY));
             
@@ -126,6 +137,7 @@ public class Affix {
                 }
             }
             
+            affix.resolve();
             return affix;
         } catch (Exception e) {
             JustDying.LOGGER.error("从NBT创建词缀时出错: " + e.getMessage());
@@ -134,7 +146,66 @@ public class Affix {
     }
     
     /**
-     * 将词缀转换为NBT数据
+     * 检查NBT是否为旧版的完整词缀格式
+     * 
+     * @param nbt 词缀NBT数据
+     * @return 是否为旧版格式
+     */
+    public static boolean isLegacyEntry(NbtCompound nbt) {
+        return nbt.contains(AFFIX_NAME_KEY);
+    }
+    
+    /**
+     * 将物品上旧版完整格式的词缀升级为精简格式
+     * 只升级注册表中存在的词缀，未注册的词缀保留完整数据以免丢失
+     * 升级前后解码得到的都是注册表中的同一个词缀，因此无需使缓存失效
+     * 
+     * @param stack 物品堆
+     * @return 是否有词缀被升级
+     */
+    public static boolean upgradeLegacyEntries(ItemStack stack) {
+        if (stack.isEmpty() || !stack.hasNbt()) {
+            return false;
+        }
+        
+        NbtCompound nbt = stack.getNbt();
+        if (nbt == null || !nbt.contains(AFFIX_NBT_KEY, NbtElement.LIST_TYPE)) {
+            return false;
+        }
+        
+        NbtList affixList = nbt.getList(AFFIX_NBT_KEY, NbtElement.COMPOUND_TYPE);
+        boolean upgraded = false;
+        for (int i = 0; i < affixList.size(); i++) {
+            NbtCompound affixNbt = affixList.getCompound(i);
+            if (!isLegacyEntry(affixNbt)) {
+                continue;
+            }
+            
+            Identifier id = Identifier.tryParse(affixNbt.getString(AFFIX_ID_KEY));
+            Affix registered = AffixRegistry.getAffix(id);
+            if (registered != null) {
+                affixList.set(i, registered.toCompactNbt());
+                upgraded = true;
+            }
+        }
+        
+        return upgraded;
+    }
+    
+    /**
+     * 将词缀转换为精简NBT数据，只保存词缀ID
+     * 物品上的词缀使用该格式，其余定义在读取时从注册表解析
+     * 
+     * @return NBT数据
+     */
+    public NbtCompound toCompactNbt() {
+        NbtCompound nbt = new NbtCompound();
+        nbt.putString(AFFIX_ID_KEY, id.toString());
+        return nbt;
+    }
+    
+    /**
+     * 将词缀的完整定义转换为NBT数据
      * 
      * @return NBT数据
      */
@@ -183,6 +254,26 @@ public class Affix {
         return itemType;
     }
     
+    /**
+     * 设置词缀的稀有度
+     * 
+     * @param rarity 稀有度
+     * @return 当前词缀实例
+     */
+    public Affix setRarity(AffixRarity rarity) {
+        this.rarity = rarity != null ? rarity : AffixRarity.COMMON;
+        return this;
+    }
+    
+    /**
+     * 获取词缀的稀有度
+     * 
+     * @return 稀有度
+     */
+    public AffixRarity getRarity() {
+        return rarity;
+    }
+    
     /**
      * 检查词缀是否适用于指定的物品类型
      * 
@@ -215,10 +306,58 @@ public class Affix {
     public Affix addEffect(AffixEffect effect) {
         if (effect != null) {
             this.effects.add(effect);
+            this.effectsByTrigger = null;
         }
         return this;
     }
     
+    /**
+     * 获取指定触发条件的效果
+     * 返回的数组是共享的，调用方不能修改
+     * 
+     * @param trigger 触发条件
+     * @return 该触发条件下的效果数组
+     */
+    public AffixEffect[] getEffects(AffixEffectTrigger trigger) {
+        AffixEffect[][] table = effectsByTrigger;
+        if (table == null) {
+            table = buildTriggerTable();
+        }
+        return table[trigger.ordinal()];
+    }
+    
+    /**
+     * 预先解析所有属性和效果的注册表引用，并按触发条件分组效果
+     * 词缀注册到注册表时调用，之后的分发不再查询注册表
+     */
+    public void resolve() {
+        for (AffixAttribute attribute : attributes) {
+            attribute.resolve();
+        }
+        for (AffixEffect effect : effects) {
+            effect.resolve();
+        }
+        buildTriggerTable();
+    }
+    
+    /**
+     * 按触发条件分组效果，只保留能解析到状态效果的条目
+     */
+    private AffixEffect[][] buildTriggerTable() {
+        AffixEffect[][] table = new AffixEffect[TRIGGERS.length][];
+        for (AffixEffectTrigger trigger : TRIGGERS) {
+            List<AffixEffect> matching = new ArrayList<>();
+            for (AffixEffect effect : effects) {
+                if (effect.getTrigger() == trigger && effect.getStatusEffect() != null) {
+                    matching.add(effect);
+                }
+            }
+            table[trigger.ordinal()] = matching.isEmpty() ? NO_EFFECTS : matching.toArray(NO_EFFECTS);
+        }
+        effectsByTrigger = table;
+        return table;
+    }
+    
     /**
      * 获取词缀ID
      * 
@@ -290,6 +429,7 @@ public class Affix {
         NbtList affixList;
         if (nbt.contains(AFFIX_NBT_KEY, NbtElement.LIST_TYPE)) {
             affixList = nbt.getList(AFFIX_NBT_KEY, NbtElement.COMPOUND_TYPE);
+            upgradeLegacyEntries(stack);
         } else {
             affixList = new NbtList();
             nbt.put(AFFIX_NBT_KEY, affixList);
@@ -305,7 +445,8 @@ public class Affix {
         }
         
         // 添加词缀到列表
-        affixList.add(toNbt());
+        affixList.add(toCompactNbt());
+        AffixCache.invalidate(stack);
         
         // 更新物品属性
         AffixManager.updateItemAttributes(stack);
@@ -343,6 +484,10 @@ public class Affix {
             }
         }
         
+        if (removed) {
+            AffixCache.invalidate(stack);
+        }
+        
         // 如果词缀列表为空，移除整个标签
         if (affixList.isEmpty()) {
             nbt.remove(AFFIX_NBT_KEY);
@@ -361,9 +506,10 @@ public class Affix {
     
     /**
      * 获取物品上的所有词缀
+     * 结果来自{@link AffixCache}，同一词缀列表只解码一次
      * 
      * @param stack 物品堆
-     * @return 词缀列表
+     * @return 不可变的词缀列表
      */
     public static List<Affix> getAffixesFromItem(ItemStack stack) {
         if (stack.isEmpty() || !stack.hasNbt()) {
@@ -380,14 +526,7 @@ public class Affix {
             return Collections.emptyList();
         }
         
-        List<Affix> affixes = new ArrayList<>();
-        for (int i = 0; i < affixList.size(); i++) {
-            NbtCompound affixNbt = affixList.getCompound(i);
-            Affix affix = fromNbt(affixNbt);
-            affixes.add(affix);
-        }
-        
-        return affixes;
+        return AffixCache.getOrDecode(affixList);
     }
     
     /**
@@ -445,30 +584,6 @@ public class Affix {
             return null;
         }
         
-        Item item = stack.getItem();
-        
-        // 检查是否为武器或工具
-        if (item instanceof SwordItem || 
-            item instanceof AxeItem || 
-            item instanceof PickaxeItem || 
-            item instanceof ShovelItem || 
-            item instanceof HoeItem ||
-            item == Items.BOW ||
-            item == Items.CROSSBOW ||
-            item == Items.TRIDENT) {
-            return EquipmentSlot.MAINHAND;
-        }
-        
-        // 检查是否为盾牌
-        if (item == Items.SHIELD) {
-            return EquipmentSlot.OFFHAND;
-        }
-        
-        // 检查是否为防具
-        if (item instanceof ArmorItem) {
-            return ((ArmorItem) item).getSlotType();
-        }
-        
-        return null;
+        return ItemMetadataIndex.get(stack.getItem()).slot();
     }
-} 
\ No newline at end of file
+}
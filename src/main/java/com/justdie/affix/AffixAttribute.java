@@ -18,6 +18,9 @@ public class AffixAttribute {
     private final EntityAttributeModifier.Operation operation;
     private final double amount;
     private UUID uuid;
+    // 预先解析的属性引用，避免每次使用都查询注册表
+    private EntityAttribute attribute;
+    private boolean resolved;
     
     /**
      * 创建一个新的词缀属性
@@ -113,13 +116,24 @@ public class AffixAttribute {
         return uuid;
     }
     
+    /**
+     * 从注册表解析属性引用，词缀注册时调用一次
+     */
+    public void resolve() {
+        this.attribute = Registries.ATTRIBUTE.get(attributeId);
+        this.resolved = true;
+    }
+    
     /**
      * 获取属性
      * 
-     * @return 属性
+     * @return 属性，未注册时返回null
      */
     public EntityAttribute getAttribute() {
-        return Registries.ATTRIBUTE.get(attributeId);
+        if (!resolved) {
+            resolve();
+        }
+        return attribute;
     }
     
     /**
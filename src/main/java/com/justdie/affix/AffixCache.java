@@ -0,0 +1,97 @@
+package com.justdie.affix;
+
+import com.google.common.collect.MapMaker;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 已解码词缀的缓存
+ * 以物品NBT中词缀列表(NbtList)的对象身份为键，缓存解码后的不可变词缀列表，
+ * 使装备未变化时每个tick读取词缀不再解析NBT，也不产生新对象
+ *
+ * 键为弱引用，物品堆被丢弃后缓存条目会随之回收；
+ * 物品被复制时NBT也会被深拷贝，新的列表对象自然不会命中旧条目
+ */
+public final class AffixCache {
+    // 弱键且按对象身份比较，不会计算NbtList的深层哈希
+    private static final ConcurrentMap<NbtList, Entry> CACHE = new MapMaker().weakKeys().makeMap();
+
+    private AffixCache() {
+    }
+
+    /**
+     * 缓存条目
+     *
+     * @param size 解码时词缀列表的长度，用于发现绕过失效接口的原地修改
+     * @param affixes 解码后的不可变词缀列表
+     */
+    private record Entry(int size, List<Affix> affixes) {
+    }
+
+    /**
+     * 获取词缀列表解码后的结果，未命中时解码并缓存
+     *
+     * @param affixList 物品NBT中的词缀列表
+     * @return 不可变的词缀列表
+     */
+    static List<Affix> getOrDecode(NbtList affixList) {
+        Entry entry = CACHE.get(affixList);
+        if (entry != null && entry.size() == affixList.size()) {
+            return entry.affixes();
+        }
+
+        List<Affix> decoded = decode(affixList);
+        CACHE.put(affixList, new Entry(affixList.size(), decoded));
+        return decoded;
+    }
+
+    /**
+     * 使物品的词缀缓存失效
+     * 在原地修改物品词缀列表后必须调用
+     *
+     * @param stack 物品堆
+     */
+    public static void invalidate(ItemStack stack) {
+        if (stack == null || !stack.hasNbt()) {
+            return;
+        }
+
+        NbtCompound nbt = stack.getNbt();
+        if (nbt != null && nbt.contains(Affix.AFFIX_NBT_KEY, NbtElement.LIST_TYPE)) {
+            CACHE.remove(nbt.getList(Affix.AFFIX_NBT_KEY, NbtElement.COMPOUND_TYPE));
+        }
+    }
+
+    /**
+     * 清空全部缓存，词缀配置重新加载时调用
+     */
+    public static void invalidateAll() {
+        CACHE.clear();
+    }
+
+    /**
+     * 将词缀列表解码为不可变的词缀列表，忽略无效条目
+     */
+    private static List<Affix> decode(NbtList affixList) {
+        if (affixList.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Affix> affixes = new ArrayList<>(affixList.size());
+        for (int i = 0; i < affixList.size(); i++) {
+            Affix affix = Affix.fromNbt(affixList.getCompound(i));
+            if (affix != null) {
+                affixes.add(affix);
+            }
+        }
+
+        return Collections.unmodifiableList(affixes);
+    }
+}
@@ -18,6 +18,9 @@ public class AffixEffect {
     private final int duration;
     private final float chance;
     private final AffixEffectTrigger trigger;
+    // 预先解析的状态效果引用，避免每次触发都查询注册表
+    private StatusEffect statusEffect;
+    private boolean resolved;
     
     /**
      * 创建一个新的词缀效果
@@ -112,13 +115,24 @@ public class AffixEffect {
         return trigger;
     }
     
+    /**
+     * 从注册表解析状态效果引用，词缀注册时调用一次
+     */
+    public void resolve() {
+        this.statusEffect = Registries.STATUS_EFFECT.get(effectId);
+        this.resolved = true;
+    }
+    
     /**
      * 获取状态效果
      * 
-     * @return 状态效果
+     * @return 状态效果，未注册时返回null
      */
     public StatusEffect getStatusEffect() {
-        return Registries.STATUS_EFFECT.get(effectId);
+        if (!resolved) {
+            resolve();
+        }
+        return statusEffect;
     }
     
     /**
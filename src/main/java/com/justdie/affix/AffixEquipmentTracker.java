@@ -0,0 +1,109 @@
+package com.justdie.affix;
+
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+
+/**
+ * 玩家装备指纹
+ * 记录每个装备槽位上物品堆的身份和词缀列表的内容哈希，
+ * 用于判断哪些槽位的词缀真正发生了变化，只对这些槽位重新计算
+ *
+ * 槽位只在收到装备变更事件后才会被检查，而原版每次耐久变化都会触发该事件，
+ * 所以先比较对象身份和列表长度，只有它们变化时才计算内容哈希
+ */
+final class AffixEquipmentTracker {
+    static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+    static final int ALL_SLOTS = (1 << SLOTS.length) - 1;
+
+    private final ItemStack[] stacks = new ItemStack[SLOTS.length];
+    private final NbtList[] affixLists = new NbtList[SLOTS.length];
+    private final int[] affixSizes = new int[SLOTS.length];
+    private final int[] affixHashes = new int[SLOTS.length];
+    private int dirtySlots = ALL_SLOTS;
+
+    /**
+     * 标记槽位需要检查
+     *
+     * @param slot 装备槽位
+     */
+    void markDirty(EquipmentSlot slot) {
+        dirtySlots |= 1 << slot.ordinal();
+    }
+
+    /**
+     * 清空指纹，下次检查时所有槽位都视为已变化
+     */
+    void reset() {
+        for (int i = 0; i < SLOTS.length; i++) {
+            stacks[i] = null;
+            affixLists[i] = null;
+            affixSizes[i] = 0;
+            affixHashes[i] = 0;
+        }
+        dirtySlots = ALL_SLOTS;
+    }
+
+    /**
+     * 检查被标记的槽位，返回词缀内容确实变化的槽位掩码
+     * 物品堆、词缀列表都是同一对象且列表长度不变时直接跳过；对象变了但词缀内容哈希相同
+     * （例如原版用等价副本替换物品堆）时只更新指纹，不触发重新计算
+     *
+     * @param player 玩家
+     * @return 按{@link EquipmentSlot#ordinal()}排列的变化槽位掩码
+     */
+    int collectChangedSlots(PlayerEntity player) {
+        int pending = dirtySlots;
+        dirtySlots = 0;
+        int changed = 0;
+
+        for (int i = 0; i < SLOTS.length; i++) {
+            if ((pending & (1 << i)) == 0) {
+                continue;
+            }
+
+            ItemStack stack = player.getEquippedStack(SLOTS[i]);
+            NbtList affixList = getAffixList(stack);
+            int size = affixList != null ? affixList.size() : 0;
+            if (stack == stacks[i] && affixList == affixLists[i] && size == affixSizes[i]) {
+                continue;
+            }
+
+            int hash = affixList != null ? affixList.hashCode() : 0;
+            boolean firstSeen = stacks[i] == null;
+            boolean sameContent = !firstSeen && hash == affixHashes[i]
+                    && (affixList == null) == (affixLists[i] == null);
+
+            stacks[i] = stack;
+            affixLists[i] = affixList;
+            affixSizes[i] = size;
+            affixHashes[i] = hash;
+
+            if (firstSeen || !sameContent) {
+                changed |= 1 << i;
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * 获取物品上的词缀列表，不存在时返回null
+     */
+    private static NbtList getAffixList(ItemStack stack) {
+        if (stack.isEmpty()) {
+            return null;
+        }
+
+        NbtCompound nbt = stack.getNbt();
+        if (nbt == null) {
+            return null;
+        }
+
+        NbtElement element = nbt.get(Affix.AFFIX_NBT_KEY);
+        return element instanceof NbtList list ? list : null;
+    }
+}
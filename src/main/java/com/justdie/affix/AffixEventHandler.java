@@ -1,48 +1,59 @@
 package com.justdie.affix;
 
 import com.justdie.JustDying;
+import com.justdie.attribute.AttributeComponents;
+import com.justdie.item.ItemMetadataIndex;
 import net.fabricmc.fabric.api.entity.event.v1.ServerEntityCombatEvents;
 import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.loot.v2.LootTableEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.entity.attribute.EntityAttribute;
 import net.minecraft.entity.attribute.EntityAttributeInstance;
 import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.entity.damage.DamageSource;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
-import net.minecraft.item.Items;
-import net.minecraft.registry.Registries;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * 词缀事件处理器，用于处理游戏事件
  */
 public class AffixEventHandler {
-    // 存储玩家的装备词缀属性修饰符
-    private static final Map<UUID, Map<EquipmentSlot, Map<Identifier, EntityAttributeModifier>>> PLAYER_AFFIX_MODIFIERS = new HashMap<>();
+    // 词缀修饰符名称前缀
+    private static final String MODIFIER_NAME_PREFIX = "Affix_";
+    
+    // 玩家的装备指纹、已应用的修饰符、被动效果和战斗触发表都保存在PlayerAffixComponent中，随玩家实体释放
+    
+    // 装备发生变更、等待在下一个tick开始时处理的玩家
+    private static final Set<ServerPlayerEntity> PENDING_EQUIPMENT_UPDATES = new LinkedHashSet<>();
+    
+    // 当前有战斗触发表或被动效果的玩家，没有任何玩家时伤害和tick处理直接返回，不查询组件
+    private static final Set<PlayerEntity> PROC_PLAYERS = new HashSet<>();
+    private static final Set<PlayerEntity> PASSIVE_PLAYERS = new HashSet<>();
 
     /**
      * 注册事件处理器
      */
     public static void register() {
-        // 注册攻击事件处理器
+        // 攻击和受伤词缀由LivingEntityMixin在伤害确认生效后触发，见onDamageApplied
+        
+        // 注册击杀事件处理器
         ServerEntityCombatEvents.AFTER_KILLED_OTHER_ENTITY.register((world, entity, killedEntity) -> {
             try {
                 if (entity instanceof PlayerEntity player && player.isAlive()) {
-                    ItemStack mainHandStack = player.getMainHandStack();
-                    
-                    if (!mainHandStack.isEmpty()) {
-                        AffixManager.handleAttack(player, killedEntity, mainHandStack);
-                    }
-                    
                     // 处理怪物掉落物品的词缀添加
                     if (killedEntity instanceof LivingEntity && !world.isClient) {
                         // 获取怪物掉落的物品
@@ -71,22 +82,30 @@ public class AffixEventHandler {
             try {
                 // 清除旧玩家的词缀修饰符
                 clearPlayerAffixModifiers(oldPlayer);
+                PENDING_EQUIPMENT_UPDATES.remove(oldPlayer);
+                PROC_PLAYERS.remove(oldPlayer);
+                PASSIVE_PLAYERS.remove(oldPlayer);
                 
-                // 为新玩家应用装备词缀修饰符
-                updatePlayerAffixModifiers(newPlayer);
+                // 新玩家的所有槽位都需要重新计算
+                getComponent(newPlayer).getEquipmentTracker().reset();
+                PENDING_EQUIPMENT_UPDATES.add(newPlayer);
             } catch (Exception e) {
                 JustDying.AFFIX_LOGGER.error("处理玩家复制事件时出错", e);
             }
         });
         
-        // 注册服务器tick事件处理器（用于定期更新被动效果）
+        // 注册服务器tick事件处理器（用于在被动效果即将到期时续期）
         ServerTickEvents.END_SERVER_TICK.register(server -> {
+            if (PASSIVE_PLAYERS.isEmpty()) {
+                return;
+            }
+            
             try {
-                if (server != null && server.getPlayerManager() != null) {
-                    for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-                        if (player != null && player.isAlive()) {
-                            updatePlayerPassiveEffects(player);
-                        }
+                int now = server.getTicks();
+                for (PlayerEntity player : PASSIVE_PLAYERS) {
+                    AffixPassiveEffects passiveEffects = getComponent(player).getPassiveEffects();
+                    if (passiveEffects != null && player.isAlive()) {
+                        passiveEffects.tick(player, now);
                     }
                 }
             } catch (Exception e) {
@@ -94,15 +113,41 @@ public class AffixEventHandler {
             }
         });
         
-        // 注册装备变更事件处理器
+        // 注册装备变更事件处理器，只记录发生变化的槽位
+        ServerEntityEvents.EQUIPMENT_CHANGE.register((livingEntity, slot, previousStack, currentStack) -> {
+            if (livingEntity instanceof ServerPlayerEntity player) {
+                getComponent(player).getEquipmentTracker().markDirty(slot);
+                PENDING_EQUIPMENT_UPDATES.add(player);
+            }
+        });
+        
+        // 玩家加入时检查全部槽位，离开时只需移出待处理队列，其余状态随玩家实体释放
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> {
+            ServerPlayerEntity player = handler.getPlayer();
+            removeLegacyAffixModifiers(player);
+            getComponent(player).getEquipmentTracker().reset();
+            PENDING_EQUIPMENT_UPDATES.add(player);
+        });
+        
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> {
+            PENDING_EQUIPMENT_UPDATES.remove(handler.getPlayer());
+            PROC_PLAYERS.remove(handler.getPlayer());
+            PASSIVE_PLAYERS.remove(handler.getPlayer());
+        });
+        
+        // 在tick开始时只处理装备发生变更的玩家
         ServerTickEvents.START_SERVER_TICK.register(server -> {
+            if (PENDING_EQUIPMENT_UPDATES.isEmpty()) {
+                return;
+            }
+            
             try {
-                if (server != null && server.getPlayerManager() != null) {
-                    for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
-                        if (player != null && player.isAlive()) {
-                            // 检查玩家装备是否变更，如果变更则更新词缀修饰符
-                            updatePlayerAffixModifiers(player);
-                        }
+                List<ServerPlayerEntity> players = new ArrayList<>(PENDING_EQUIPMENT_UPDATES);
+                PENDING_EQUIPMENT_UPDATES.clear();
+                
+                for (ServerPlayerEntity player : players) {
+                    if (!player.isRemoved() && player.isAlive()) {
+                        updateChangedAffixModifiers(player);
                     }
                 }
             } catch (Exception e) {
@@ -129,75 +174,82 @@ public class AffixEventHandler {
      * 检查物品是否适合添加词缀
      */
     private static boolean isValidItemForAffix(ItemStack stack) {
-        if (stack.isEmpty()) {
-            return false;
-        }
-        
-        // 检查物品类型
-        String itemType = getItemType(stack);
-        
-        // 根据物品类型判断是否适合添加词缀
-        return itemType != null;
+        return !stack.isEmpty() && ItemMetadataIndex.get(stack.getItem()).affixCategory() != null;
     }
-    
+
     /**
-     * 获取物品的类型
-     * 
-     * @param stack 物品堆
-     * @return 物品类型，如果不适合添加词缀则返回null
+     * 伤害确认生效后用玩家的编译触发表处理一次伤害，由LivingEntityMixin在LivingEntity.damage返回true时调用
+     * 攻击方为玩家时对受害者触发其主手的攻击效果，受害者为玩家时对自身触发其护甲的受伤效果
+     *
+     * @param entity 受到伤害的实体
+     * @param source 伤害来源
      */
-    private static String getItemType(ItemStack stack) {
-        if (stack.isEmpty()) {
-            return null;
-        }
-        
-        // 检查是否为武器
-        if (stack.getItem() instanceof net.minecraft.item.SwordItem ||
-            stack.getItem() instanceof net.minecraft.item.AxeItem ||
-            stack.getItem() == Items.BOW ||
-            stack.getItem() == Items.CROSSBOW ||
-            stack.getItem() == Items.TRIDENT) {
-            return "WEAPON";
-        }
-        
-        // 检查是否为防具
-        if (stack.getItem() instanceof net.minecraft.item.ArmorItem) {
-            return "ARMOR";
-        }
-        
-        // 检查是否为工具
-        if (stack.getItem() instanceof net.minecraft.item.PickaxeItem ||
-            stack.getItem() instanceof net.minecraft.item.ShovelItem ||
-            stack.getItem() instanceof net.minecraft.item.HoeItem) {
-            return "TOOL";
+    public static void onDamageApplied(LivingEntity entity, DamageSource source) {
+        if (PROC_PLAYERS.isEmpty()) {
+            return;
         }
         
-        // 特殊物品
-        if (stack.getItem() == Items.SHIELD) {
-            return "ARMOR"; // 盾牌视为防具
+        try {
+            if (entity.isAlive() && source.getAttacker() instanceof ServerPlayerEntity attacker
+                    && attacker != entity && attacker.isAlive() && PROC_PLAYERS.contains(attacker)) {
+                AffixProcTable procTable = getComponent(attacker).getProcTable();
+                if (procTable != null) {
+                    procTable.procHit(entity);
+                }
+            }
+            
+            if (entity instanceof ServerPlayerEntity player && player.isAlive() && PROC_PLAYERS.contains(player)) {
+                AffixProcTable procTable = getComponent(player).getProcTable();
+                if (procTable != null) {
+                    procTable.procHurt(player);
+                }
+            }
+        } catch (Exception e) {
+            JustDying.AFFIX_LOGGER.error("处理伤害事件时出错", e);
         }
-        
-        return null; // 不适合添加词缀
     }
-
+    
     /**
-     * 更新玩家的被动效果
+     * 装备变化后重新编译玩家的战斗触发表
      */
-    private static void updatePlayerPassiveEffects(ServerPlayerEntity player) {
-        if (player == null || !player.isAlive()) {
-            return;
+    private static void updatePlayerProcTable(PlayerEntity player) {
+        try {
+            PlayerAffixComponent component = getComponent(player);
+            AffixProcTable procTable = component.getProcTable();
+            if (procTable == null) {
+                procTable = new AffixProcTable();
+            }
+            procTable.rebuild(player);
+            if (procTable.isEmpty()) {
+                component.setProcTable(null);
+                PROC_PLAYERS.remove(player);
+            } else {
+                component.setProcTable(procTable);
+                PROC_PLAYERS.add(player);
+            }
+        } catch (Exception e) {
+            JustDying.AFFIX_LOGGER.error("编译战斗触发词缀时出错: {}", player.getName().getString(), e);
         }
-        
+    }
+    
+    /**
+     * 装备变化后重新收集玩家的被动效果
+     */
+    private static void updatePlayerPassiveEffects(PlayerEntity player) {
         try {
-            // 处理玩家装备的被动效果
-            for (EquipmentSlot slot : EquipmentSlot.values()) {
-                // 只处理实际装备在玩家身上的物品
-                if (isEquipmentSlot(slot)) {
-                    ItemStack stack = player.getEquippedStack(slot);
-                    if (!stack.isEmpty()) {
-                        AffixManager.applyPassiveEffects(player, stack);
-                    }
-                }
+            PlayerAffixComponent component = getComponent(player);
+            AffixPassiveEffects passiveEffects = component.getPassiveEffects();
+            if (passiveEffects == null) {
+                passiveEffects = new AffixPassiveEffects();
+            }
+            int now = player.getServer() != null ? player.getServer().getTicks() : 0;
+            passiveEffects.rebuild(player, now);
+            if (passiveEffects.isEmpty()) {
+                component.setPassiveEffects(null);
+                PASSIVE_PLAYERS.remove(player);
+            } else {
+                component.setPassiveEffects(passiveEffects);
+                PASSIVE_PLAYERS.add(player);
             }
         } catch (Exception e) {
             JustDying.AFFIX_LOGGER.error("应用被动效果时出错: {}", player.getName().getString(), e);
@@ -205,39 +257,45 @@ public class AffixEventHandler {
     }
     
     /**
-     * 检查是否为装备槽位（而非物品栏槽位）
+     * 获取玩家的词缀状态组件
      */
-    private static boolean isEquipmentSlot(EquipmentSlot slot) {
-        return slot == EquipmentSlot.HEAD || 
-               slot == EquipmentSlot.CHEST || 
-               slot == EquipmentSlot.LEGS || 
-               slot == EquipmentSlot.FEET || 
-               slot == EquipmentSlot.MAINHAND || 
-               slot == EquipmentSlot.OFFHAND;
+    private static PlayerAffixComponent getComponent(PlayerEntity player) {
+        return AttributeComponents.PLAYER_AFFIXES.get(player);
     }
-
+    
     /**
-     * 更新玩家的词缀属性修饰符
+     * 重新计算玩家所有槽位的词缀属性修饰符
      */
     public static void updatePlayerAffixModifiers(PlayerEntity player) {
         if (player == null || !player.isAlive()) {
             return;
         }
         
+        getComponent(player).getEquipmentTracker().reset();
+        updateChangedAffixModifiers(player);
+    }
+    
+    /**
+     * 只为词缀发生变化的槽位重新计算属性修饰符
+     */
+    private static void updateChangedAffixModifiers(PlayerEntity player) {
         try {
-            // 清除旧的词缀修饰符
-            clearPlayerAffixModifiers(player);
+            PlayerAffixComponent component = getComponent(player);
+            int changedSlots = component.getEquipmentTracker().collectChangedSlots(player);
+            if (changedSlots == 0) {
+                return;
+            }
             
-            // 为每个装备槽应用词缀属性修饰符
-            for (EquipmentSlot slot : EquipmentSlot.values()) {
-                // 只处理实际装备在玩家身上的物品
-                if (isEquipmentSlot(slot)) {
+            for (EquipmentSlot slot : AffixEquipmentTracker.SLOTS) {
+                if ((changedSlots & (1 << slot.ordinal())) != 0) {
                     ItemStack stack = player.getEquippedStack(slot);
-                    if (!stack.isEmpty()) {
-                        applyAffixModifiers(player, stack, slot);
-                    }
+                    Affix.upgradeLegacyEntries(stack);
+                    applyAffixModifiers(player, component, stack, slot);
                 }
             }
+            
+            updatePlayerPassiveEffects(player);
+            updatePlayerProcTable(player);
         } catch (Exception e) {
             JustDying.AFFIX_LOGGER.error("更新词缀属性修饰符时出错: {}", player.getName().getString(), e);
         }
@@ -252,154 +310,153 @@ public class AffixEventHandler {
         }
         
         try {
-            UUID playerUuid = player.getUuid();
-            Map<EquipmentSlot, Map<Identifier, EntityAttributeModifier>> slotModifiers = PLAYER_AFFIX_MODIFIERS.remove(playerUuid);
-            
-            if (slotModifiers == null) {
-                return;
-            }
-            
-            for (Map.Entry<EquipmentSlot, Map<Identifier, EntityAttributeModifier>> slotEntry : slotModifiers.entrySet()) {
-                for (Map.Entry<Identifier, EntityAttributeModifier> entry : slotEntry.getValue().entrySet()) {
-                    Identifier attributeId = entry.getKey();
-                    EntityAttributeModifier modifier = entry.getValue();
-                    
-                    // 从玩家属性中移除修饰符
-                    EntityAttribute attribute = Registries.ATTRIBUTE.get(attributeId);
-                    if (attribute != null) {
-                        EntityAttributeInstance attributeInstance = player.getAttributeInstance(attribute);
-                        if (attributeInstance != null) {
-                            attributeInstance.removeModifier(modifier.getId());
-                        }
-                    }
+            PlayerAffixComponent component = getComponent(player);
+            for (EquipmentSlot slot : AffixEquipmentTracker.SLOTS) {
+                for (AppliedModifier applied : component.getModifiers(slot)) {
+                    removeModifier(player, applied.attribute(), applied.modifier().getId());
                 }
+                component.setModifiers(slot, PlayerAffixComponent.NO_MODIFIERS);
             }
         } catch (Exception e) {
             JustDying.AFFIX_LOGGER.error("清除词缀属性修饰符时出错: {}", player.getName().getString(), e);
         }
     }
+    
+    /**
+     * 移除旧版本以随机UUID持久保存在玩家数据中的词缀修饰符
+     * 当前的词缀修饰符都是临时修饰符，不会被保存，所以加入时存在的同名修饰符都是遗留数据
+     */
+    private static void removeLegacyAffixModifiers(PlayerEntity player) {
+        for (Affix affix : AffixRegistry.getAllAffixes()) {
+            for (AffixAttribute attribute : affix.getAttributes()) {
+                EntityAttribute entityAttribute = attribute.getAttribute();
+                EntityAttributeInstance attributeInstance = entityAttribute != null ? player.getAttributeInstance(entityAttribute) : null;
+                if (attributeInstance == null) {
+                    continue;
+                }
+                
+                for (EntityAttributeModifier modifier : attributeInstance.getModifiers()) {
+                    if (modifier.getName().startsWith(MODIFIER_NAME_PREFIX)) {
+                        attributeInstance.removeModifier(modifier.getId());
+                    }
+                }
+            }
+        }
+    }
 
     /**
      * 应用词缀属性修饰符
+     * 修饰符UUID由（槽位、词缀ID、属性ID、运算方式）确定，同一件装备每次得到相同的UUID；
+     * 玩家身上已有数值相同的修饰符时保持不动，只增删真正变化的修饰符，避免原版重复同步属性
      */
-    private static void applyAffixModifiers(PlayerEntity player, ItemStack stack, EquipmentSlot slot) {
-        if (player == null || stack.isEmpty() || slot == null) {
+    private static void applyAffixModifiers(PlayerEntity player, PlayerAffixComponent component, ItemStack stack, EquipmentSlot slot) {
+        if (player == null || slot == null) {
             return;
         }
         
         try {
-            List<Affix> affixes = AffixManager.getAffixes(stack);
-            
-            if (affixes.isEmpty()) {
-                return;
-            }
-            
-            UUID playerUuid = player.getUuid();
+            AppliedModifier[] previous = component.getModifiers(slot);
             
-            // 获取或创建玩家的词缀修饰符记录
-            Map<EquipmentSlot, Map<Identifier, EntityAttributeModifier>> slotModifiers = PLAYER_AFFIX_MODIFIERS.computeIfAbsent(
-                    playerUuid, k -> new HashMap<>());
-            
-            // 获取或创建装备槽的词缀修饰符记录
-            Map<Identifier, EntityAttributeModifier> modifiers = slotModifiers.computeIfAbsent(
-                    slot, k -> new HashMap<>());
-            
-            // 清除该槽位的旧修饰符
-            for (Map.Entry<Identifier, EntityAttributeModifier> entry : new HashMap<>(modifiers).entrySet()) {
-                Identifier attributeId = entry.getKey();
-                EntityAttributeModifier oldModifier = entry.getValue();
-                
-                EntityAttribute attribute = Registries.ATTRIBUTE.get(attributeId);
-                if (attribute != null) {
-                    EntityAttributeInstance attributeInstance = player.getAttributeInstance(attribute);
-                    if (attributeInstance != null && oldModifier != null) {
-                        attributeInstance.removeModifier(oldModifier.getId());
-                        JustDying.AFFIX_LOGGER.debug("Removed old modifier {} from attribute {} for player {}", 
-                                oldModifier.getId(), attribute.getTranslationKey(), player.getName().getString());
+            // 汇总该槽位期望的修饰符，同一词缀重复的属性合并数值
+            List<AppliedModifier> desired = new ArrayList<>();
+            for (Affix affix : AffixManager.getAffixes(stack)) {
+                for (AffixAttribute attribute : affix.getAttributes()) {
+                    EntityAttribute entityAttribute = attribute != null ? attribute.getAttribute() : null;
+                    if (entityAttribute == null) {
+                        continue;
+                    }
+                    
+                    UUID modifierId = getModifierId(slot, affix.getId(), attribute);
+                    int index = indexOf(desired, modifierId);
+                    double amount = attribute.getAmount() + (index >= 0 ? desired.get(index).modifier().getValue() : 0.0);
+                    String modifierName = MODIFIER_NAME_PREFIX + affix.getId() + "_" + slot.getName();
+                    AppliedModifier applied = new AppliedModifier(entityAttribute, new EntityAttributeModifier(
+                            modifierId, modifierName, amount, attribute.getOperation()));
+                    
+                    if (index >= 0) {
+                        desired.set(index, applied);
+                    } else {
+                        desired.add(applied);
                     }
                 }
             }
             
-            // 清空该槽位的修饰符记录
-            modifiers.clear();
+            // 移除不再需要的修饰符
+            for (AppliedModifier applied : previous) {
+                if (indexOf(desired, applied.modifier().getId()) < 0) {
+                    removeModifier(player, applied.attribute(), applied.modifier().getId());
+                }
+            }
             
-            // 应用每个词缀的属性修饰符
-            for (Affix affix : affixes) {
-                if (affix == null) continue;
+            // 添加新的或数值变化的修饰符
+            for (AppliedModifier applied : desired) {
+                EntityAttributeInstance attributeInstance = player.getAttributeInstance(applied.attribute());
+                if (attributeInstance == null) {
+                    JustDying.AFFIX_LOGGER.warn("Player {} does not have attribute {}", 
+                            player.getName().getString(), applied.attribute().getTranslationKey());
+                    continue;
+                }
                 
-                JustDying.AFFIX_LOGGER.debug("Applying affix {} to player {} in slot {}", 
-                        affix.getName(), player.getName().getString(), slot.getName());
+                EntityAttributeModifier modifier = applied.modifier();
+                EntityAttributeModifier current = attributeInstance.getModifier(modifier.getId());
+                if (current != null && current.getValue() == modifier.getValue() 
+                        && current.getOperation() == modifier.getOperation()) {
+                    continue;
+                }
                 
-                for (AffixAttribute attribute : affix.getAttributes()) {
-                    if (attribute == null) continue;
-                    
-                    EntityAttribute entityAttribute = attribute.getAttribute();
-                    
-                    if (entityAttribute != null) {
-                        // 获取玩家的属性实例
-                        EntityAttributeInstance attributeInstance = player.getAttributeInstance(entityAttribute);
-                        if (attributeInstance == null) {
-                            JustDying.AFFIX_LOGGER.warn("Player {} does not have attribute {}", 
-                                    player.getName().getString(), entityAttribute.getTranslationKey());
-                            continue;
-                        }
-                        
-                        // 创建唯一的UUID，避免冲突
-                        UUID modifierUuid = UUID.randomUUID();
-                        
-                        // 创建属性修饰符
-                        String modifierName = "Affix_" + affix.getId() + "_" + slot.getName();
-                        EntityAttributeModifier modifier = new EntityAttributeModifier(
-                            modifierUuid,
-                            modifierName,
-                            attribute.getAmount(),
-                            attribute.getOperation()
-                        );
-                        
-                        try {
-                            // 添加到玩家属性
-                            attributeInstance.addPersistentModifier(modifier);
-                            
-                            // 记录修饰符
-                            modifiers.put(attribute.getAttributeId(), modifier);
-                            
-                            JustDying.AFFIX_LOGGER.debug("Added modifier {} with value {} to attribute {} for player {}", 
-                                    modifierName, attribute.getAmount(), entityAttribute.getTranslationKey(), player.getName().getString());
-                        } catch (IllegalArgumentException e) {
-                            // 如果出现错误，尝试先移除所有相同名称的修饰符，然后重新添加
-                            JustDying.AFFIX_LOGGER.warn("Error adding modifier to attribute {}: {}. Attempting to remove existing modifiers first.", 
-                                    entityAttribute.getTranslationKey(), e.getMessage());
-                            
-                            // 移除所有相同名称的修饰符
-                            attributeInstance.getModifiers().forEach(existingModifier -> {
-                                if (existingModifier.getName().equals(modifierName)) {
-                                    attributeInstance.removeModifier(existingModifier.getId());
-                                    JustDying.AFFIX_LOGGER.debug("Removed existing modifier {} from attribute {}", 
-                                            existingModifier.getId(), entityAttribute.getTranslationKey());
-                                }
-                            });
-                            
-                            // 重新尝试添加修饰符
-                            try {
-                                attributeInstance.addPersistentModifier(modifier);
-                                
-                                // 记录修饰符
-                                modifiers.put(attribute.getAttributeId(), modifier);
-                                
-                                JustDying.AFFIX_LOGGER.debug("Successfully added modifier after cleanup: {} to attribute {}", 
-                                        modifierName, entityAttribute.getTranslationKey());
-                            } catch (IllegalArgumentException ex) {
-                                // 如果仍然出现错误，记录详细信息但不中断处理
-                                JustDying.AFFIX_LOGGER.error("Still unable to add modifier {} to attribute {}: {}", 
-                                        modifier.getId(), entityAttribute.getTranslationKey(), ex.getMessage());
-                            }
-                        }
-                    }
+                if (current != null) {
+                    attributeInstance.removeModifier(modifier.getId());
                 }
+                attributeInstance.addTemporaryModifier(modifier);
+                AffixStats.attributeModifierUpdates++;
+                
+                JustDying.AFFIX_LOGGER.debug("Added modifier {} with value {} to attribute {} for player {}", 
+                        modifier.getName(), modifier.getValue(), applied.attribute().getTranslationKey(), player.getName().getString());
             }
+            
+            component.setModifiers(slot, desired.isEmpty() 
+                    ? PlayerAffixComponent.NO_MODIFIERS : desired.toArray(PlayerAffixComponent.NO_MODIFIERS));
         } catch (Exception e) {
             JustDying.AFFIX_LOGGER.error("应用词缀属性修饰符时出错: {} 在槽位 {}", 
                     player.getName().getString(), slot.getName(), e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 在修饰符列表中按UUID查找，每个槽位只有少量修饰符，线性查找即可
+     */
+    private static int indexOf(List<AppliedModifier> modifiers, UUID modifierId) {
+        for (int i = 0; i < modifiers.size(); i++) {
+            if (modifiers.get(i).modifier().getId().equals(modifierId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * 从玩家属性中移除修饰符
+     */
+    private static void removeModifier(PlayerEntity player, EntityAttribute attribute, UUID modifierId) {
+        EntityAttributeInstance attributeInstance = player.getAttributeInstance(attribute);
+        if (attributeInstance != null && attributeInstance.getModifier(modifierId) != null) {
+            attributeInstance.removeModifier(modifierId);
+            AffixStats.attributeModifierUpdates++;
+        }
+    }
+    
+    /**
+     * 根据槽位、词缀ID、属性ID和运算方式生成确定的修饰符UUID
+     */
+    private static UUID getModifierId(EquipmentSlot slot, Identifier affixId, AffixAttribute attribute) {
+        String key = MODIFIER_NAME_PREFIX + slot.getName() + "|" + affixId + "|" 
+                + attribute.getAttributeId() + "|" + attribute.getOperation().getId();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 已应用到玩家身上的词缀修饰符及其对应的属性
+     */
+    record AppliedModifier(EntityAttribute attribute, EntityAttributeModifier modifier) {
+    }
+}
@@ -0,0 +1,188 @@
+package com.justdie.affix;
+
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttribute;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 物品属性修饰符编译器
+ * 把物品的基础属性修饰符和词缀属性按"属性×运算"合并到预分配的扁平数组中，再一次性写回物品NBT
+ *
+ * 基础修饰符通过物品堆的属性接口获取（包括Fabric按物品堆提供的修饰符和修改回调），
+ * 获取前直接移除物品上即将被替换的修饰符并暂时摘下词缀列表，不需要复制物品堆或NBT；
+ * 每个线程复用一个编译器实例，修饰符UUID和名称按属性缓存，合并过程不产生临时集合
+ */
+final class AffixModifierCompiler {
+    private static final String ATTRIBUTE_MODIFIERS_KEY = "AttributeModifiers";
+    private static final String MODIFIER_NAME_PREFIX = "Merged_";
+    private static final EntityAttributeModifier.Operation[] OPERATIONS = EntityAttributeModifier.Operation.values();
+    private static final EquipmentSlot[] SLOTS = EquipmentSlot.values();
+
+    private static final ThreadLocal<AffixModifierCompiler> SCRATCH = ThreadLocal.withInitial(AffixModifierCompiler::new);
+    // 每个属性的修饰符UUID（按运算×槽位排列）和名称（按运算排列）
+    private static final Map<EntityAttribute, ModifierKeys> MODIFIER_KEYS = new ConcurrentHashMap<>();
+
+    private EntityAttribute[] attributes = new EntityAttribute[8];
+    private double[] sums = new double[8 * OPERATIONS.length];
+    private boolean[] present = new boolean[8 * OPERATIONS.length];
+    private int attributeCount;
+
+    private AffixModifierCompiler() {
+    }
+
+    /**
+     * 合并基础属性和词缀属性，并替换物品上的属性修饰符
+     *
+     * @param stack 物品堆
+     * @param slot 装备槽位
+     * @param includeAffixes 是否合并物品上的词缀属性
+     * @return 写入的修饰符数量
+     */
+    static int compile(ItemStack stack, EquipmentSlot slot, boolean includeAffixes) {
+        AffixModifierCompiler compiler = SCRATCH.get();
+        compiler.reset();
+        compiler.addBase(stack, slot);
+        if (includeAffixes) {
+            compiler.addAffixes(Affix.getAffixesFromItem(stack));
+        }
+        return compiler.writeTo(stack, slot);
+    }
+
+    private void reset() {
+        Arrays.fill(attributes, 0, attributeCount, null);
+        Arrays.fill(present, 0, attributeCount * OPERATIONS.length, false);
+        attributeCount = 0;
+    }
+
+    /**
+     * 加入物品的基础属性修饰符（不含物品NBT中的修饰符和词缀）
+     * 物品NBT中的修饰符会在写回时整体替换，这里直接移除；词缀列表只在查询期间摘下，随后原样放回
+     */
+    private void addBase(ItemStack stack, EquipmentSlot slot) {
+        NbtCompound nbt = stack.getNbt();
+        NbtElement affixList = null;
+        if (nbt != null) {
+            nbt.remove(ATTRIBUTE_MODIFIERS_KEY);
+            affixList = nbt.get(Affix.AFFIX_NBT_KEY);
+            if (affixList != null) {
+                nbt.remove(Affix.AFFIX_NBT_KEY);
+            }
+        }
+
+        try {
+            for (Map.Entry<EntityAttribute, EntityAttributeModifier> entry
+                    : stack.getAttributeModifiers(slot).entries()) {
+                EntityAttributeModifier modifier = entry.getValue();
+                add(entry.getKey(), modifier.getOperation(), modifier.getValue());
+            }
+        } finally {
+            if (affixList != null) {
+                nbt.put(Affix.AFFIX_NBT_KEY, affixList);
+            }
+        }
+    }
+
+    private void addAffixes(List<Affix> affixes) {
+        for (int i = 0; i < affixes.size(); i++) {
+            for (AffixAttribute attribute : affixes.get(i).getAttributes()) {
+                EntityAttribute entityAttribute = attribute.getAttribute();
+                if (entityAttribute != null) {
+                    add(entityAttribute, attribute.getOperation(), attribute.getAmount());
+                }
+            }
+        }
+    }
+
+    private void add(EntityAttribute attribute, EntityAttributeModifier.Operation operation, double value) {
+        int index = indexOf(attribute);
+        int cell = index * OPERATIONS.length + operation.ordinal();
+        if (present[cell]) {
+            sums[cell] += value;
+        } else {
+            present[cell] = true;
+            sums[cell] = value;
+        }
+    }
+
+    /**
+     * 查找属性的槽位，不存在时追加；物品上的属性通常只有几个，线性查找即可
+     */
+    private int indexOf(EntityAttribute attribute) {
+        for (int i = 0; i < attributeCount; i++) {
+            if (attributes[i] == attribute) {
+                return i;
+            }
+        }
+
+        if (attributeCount == attributes.length) {
+            int capacity = attributes.length * 2;
+            attributes = Arrays.copyOf(attributes, capacity);
+            sums = Arrays.copyOf(sums, capacity * OPERATIONS.length);
+            present = Arrays.copyOf(present, capacity * OPERATIONS.length);
+        }
+        attributes[attributeCount] = attribute;
+        return attributeCount++;
+    }
+
+    /**
+     * 清除物品原有的属性修饰符并写入合并结果
+     */
+    private int writeTo(ItemStack stack, EquipmentSlot slot) {
+        NbtCompound nbt = stack.getNbt();
+        if (nbt != null) {
+            nbt.remove(ATTRIBUTE_MODIFIERS_KEY);
+        }
+
+        int written = 0;
+        for (int i = 0; i < attributeCount; i++) {
+            EntityAttribute attribute = attributes[i];
+            ModifierKeys keys = MODIFIER_KEYS.computeIfAbsent(attribute, ModifierKeys::create);
+
+            for (int op = 0; op < OPERATIONS.length; op++) {
+                int cell = i * OPERATIONS.length + op;
+                if (!present[cell]) {
+                    continue;
+                }
+
+                EntityAttributeModifier modifier = new EntityAttributeModifier(
+                        keys.ids[op * SLOTS.length + slot.ordinal()],
+                        keys.names[op],
+                        sums[cell],
+                        OPERATIONS[op]);
+                stack.addAttributeModifier(attribute, modifier, slot);
+                written++;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 合并修饰符的固定UUID和名称，相同属性、运算和槽位总是得到相同的UUID，
+     * 这样词缀相同的物品NBT一致，可以正常堆叠和比较
+     */
+    private record ModifierKeys(UUID[] ids, String[] names) {
+        static ModifierKeys create(EntityAttribute attribute) {
+            UUID[] ids = new UUID[OPERATIONS.length * SLOTS.length];
+            String[] names = new String[OPERATIONS.length];
+            for (EntityAttributeModifier.Operation operation : OPERATIONS) {
+                String name = MODIFIER_NAME_PREFIX + attribute.getTranslationKey() + "_" + operation.name();
+                names[operation.ordinal()] = name;
+                for (EquipmentSlot slot : SLOTS) {
+                    ids[operation.ordinal() * SLOTS.length + slot.ordinal()] = UUID.nameUUIDFromBytes(
+                            (name + "|" + slot.getName()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return new ModifierKeys(ids, names);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.justdie.affix;
+
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.effect.StatusEffect;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 玩家被动词缀效果的续期调度
+ * 装备变化时收集所有被动效果，之后只在效果即将到期、被移除（如喝牛奶）
+ * 或装备变化时重新施加，而不是每个tick都创建新的效果实例
+ */
+final class AffixPassiveEffects {
+    // 被动效果每次施加的最短持续时间（单位：tick）
+    static final int MIN_DURATION = 100;
+    // 剩余时间低于该值时续期（单位：tick）
+    static final int REFRESH_MARGIN = 20;
+
+    private static final AffixEffect[] NO_EFFECTS = new AffixEffect[0];
+    private static final StatusEffect[] NO_TYPES = new StatusEffect[0];
+    private static final StatusEffectInstance[] NO_INSTANCES = new StatusEffectInstance[0];
+
+    private AffixEffect[] effects = NO_EFFECTS;
+    private StatusEffect[] types = NO_TYPES;
+    // 本调度器施加的实例，以及施加时的等级和到期tick；原版会原地升级已有实例，仅凭实例身份无法判断归属
+    private StatusEffectInstance[] applied = NO_INSTANCES;
+    private int[] appliedAmplifiers = new int[0];
+    private int[] appliedExpiryTicks = new int[0];
+    private int[] nextRefreshTicks = new int[0];
+
+    /**
+     * 是否没有任何被动效果
+     */
+    boolean isEmpty() {
+        return effects.length == 0;
+    }
+
+    /**
+     * 根据实体当前装备重新收集被动效果
+     * 不再提供的效果如果仍是本调度器施加的实例，会被立即移除，其他来源的同类效果保持不变
+     *
+     * @param entity 实体
+     * @param now 当前服务器tick
+     */
+    void rebuild(LivingEntity entity, int now) {
+        List<AffixEffect> collectedEffects = new ArrayList<>();
+        List<StatusEffect> collectedTypes = new ArrayList<>();
+
+        for (int i = 0; i < AffixEquipmentTracker.SLOTS.length; i++) {
+            ItemStack stack = entity.getEquippedStack(AffixEquipmentTracker.SLOTS[i]);
+            for (Affix affix : AffixManager.getAffixes(stack)) {
+                // 触发表中的效果都已解析到状态效果
+                for (AffixEffect effect : affix.getEffects(AffixEffectTrigger.PASSIVE)) {
+                    collectedEffects.add(effect);
+                    collectedTypes.add(effect.getStatusEffect());
+                }
+            }
+        }
+
+        // 移除不再由装备提供的效果
+        for (int i = 0; i < types.length; i++) {
+            if (!collectedTypes.contains(types[i]) && isOwned(i, entity.getStatusEffect(types[i]), now)) {
+                entity.removeStatusEffect(types[i]);
+            }
+        }
+
+        effects = collectedEffects.toArray(NO_EFFECTS);
+        types = collectedTypes.toArray(NO_TYPES);
+        applied = new StatusEffectInstance[effects.length];
+        appliedAmplifiers = new int[effects.length];
+        appliedExpiryTicks = new int[effects.length];
+        nextRefreshTicks = new int[effects.length];
+    }
+
+    /**
+     * 续期即将到期或已经失效的被动效果
+     *
+     * @param entity 实体
+     * @param now 当前服务器tick
+     */
+    void tick(LivingEntity entity, int now) {
+        for (int i = 0; i < effects.length; i++) {
+            StatusEffectInstance current = entity.getStatusEffect(types[i]);
+            if (applied[i] != null && !isOwned(i, current, now)) {
+                // 实例已被移除或被其他来源升级，不再视为本调度器的实例
+                applied[i] = null;
+            }
+            // 本调度器的实例仍在，或者其他来源的同类效果仍在，都等到续期时间再处理
+            boolean stillActive = applied[i] != null ? current == applied[i] : current != null;
+            if (stillActive && now < nextRefreshTicks[i]) {
+                continue;
+            }
+
+            AffixEffect effect = effects[i];
+            int duration = Math.max(effect.getDuration(), MIN_DURATION);
+            int amplifier = effect.getLevel() - 1;
+            entity.addStatusEffect(new StatusEffectInstance(types[i], duration, amplifier, false, false));
+            AffixStats.passiveEffectApplications++;
+
+            // 原版会把新效果合并进已有实例，只有合并后等级和时间与施加的一致才算本调度器的实例；
+            // 已有更强或更长的同类效果时不记录该实例，卸下装备时也不会移除它，只沿用其剩余时间安排下一次续期
+            StatusEffectInstance active = entity.getStatusEffect(types[i]);
+            boolean ours = active != null && active.getAmplifier() == amplifier && active.getDuration() == duration;
+            applied[i] = ours ? active : null;
+            appliedAmplifiers[i] = amplifier;
+            appliedExpiryTicks[i] = now + duration;
+            if (active != null && active.isInfinite()) {
+                nextRefreshTicks[i] = Integer.MAX_VALUE;
+            } else {
+                int remaining = active != null ? active.getDuration() : duration;
+                nextRefreshTicks[i] = now + Math.max(remaining - REFRESH_MARGIN, 1);
+            }
+        }
+    }
+
+    /**
+     * 实例是否仍是本调度器施加的：同一个实例，等级不变，剩余时间不超过施加时给的时间
+     * 其他来源把它升级到更高等级或更长时间后就不再属于本调度器
+     */
+    private boolean isOwned(int i, StatusEffectInstance current, int now) {
+        return current != null && current == applied[i]
+                && current.getAmplifier() == appliedAmplifiers[i]
+                && !current.isInfinite()
+                // 状态效果随玩家tick递减，与服务器tick可能相差1
+                && current.getDuration() <= appliedExpiryTicks[i] - now + 1;
+    }
+}
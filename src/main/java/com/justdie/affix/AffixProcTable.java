@@ -0,0 +1,106 @@
+package com.justdie.affix;
+
+import com.justdie.JustDying;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.effect.StatusEffectInstance;
+import net.minecraft.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 玩家战斗触发词缀的编译表
+ * 装备变化时把主手的攻击触发效果和护甲、副手的受伤触发效果收集成扁平数组，
+ * 每次命中只需扫描数组并为每个效果抽一次随机数
+ */
+final class AffixProcTable {
+    private static final AffixEffect[] NO_EFFECTS = new AffixEffect[0];
+    // 受伤触发效果的来源槽位
+    private static final EquipmentSlot[] HURT_SLOTS = {
+            EquipmentSlot.HEAD, EquipmentSlot.CHEST, EquipmentSlot.LEGS, EquipmentSlot.FEET, EquipmentSlot.OFFHAND
+    };
+
+    private AffixEffect[] onHit = NO_EFFECTS;
+    private AffixEffect[] onHurt = NO_EFFECTS;
+
+    /**
+     * 是否没有任何战斗触发效果
+     */
+    boolean isEmpty() {
+        return onHit.length == 0 && onHurt.length == 0;
+    }
+
+    /**
+     * 根据实体当前装备重新编译触发表
+     *
+     * @param entity 实体
+     */
+    void rebuild(LivingEntity entity) {
+        onHit = toArray(collectInto(entity.getEquippedStack(EquipmentSlot.MAINHAND), AffixEffectTrigger.ON_HIT, null));
+
+        List<AffixEffect> hurtEffects = null;
+        for (EquipmentSlot slot : HURT_SLOTS) {
+            hurtEffects = collectInto(entity.getEquippedStack(slot), AffixEffectTrigger.ON_HURT, hurtEffects);
+        }
+        onHurt = toArray(hurtEffects);
+    }
+
+    /**
+     * 命中目标时触发攻击效果
+     *
+     * @param target 被命中的实体
+     */
+    void procHit(LivingEntity target) {
+        apply(onHit, target);
+    }
+
+    /**
+     * 受到伤害时触发受伤效果
+     *
+     * @param entity 受伤的实体
+     */
+    void procHurt(LivingEntity entity) {
+        apply(onHurt, entity);
+    }
+
+    private static void apply(AffixEffect[] effects, LivingEntity target) {
+        for (AffixEffect effect : effects) {
+            float chance = effect.getChance();
+            if (chance < 1.0f && ThreadLocalRandom.current().nextFloat() >= chance) {
+                continue;
+            }
+
+            StatusEffectInstance statusEffect = effect.createEffectInstance();
+            if (statusEffect != null) {
+                target.addStatusEffect(statusEffect);
+                JustDying.AFFIX_LOGGER.debug("Applied effect {} to {} from affix proc", effect.getEffectId(), target);
+            }
+        }
+    }
+
+    private static AffixEffect[] toArray(List<AffixEffect> effects) {
+        return effects != null ? effects.toArray(NO_EFFECTS) : NO_EFFECTS;
+    }
+
+    /**
+     * 收集物品上指定触发条件的效果，没有效果时不分配列表
+     */
+    private static List<AffixEffect> collectInto(ItemStack stack, AffixEffectTrigger trigger, List<AffixEffect> into) {
+        for (Affix affix : AffixManager.getAffixes(stack)) {
+            AffixEffect[] effects = affix.getEffects(trigger);
+            if (effects.length == 0) {
+                continue;
+            }
+
+            if (into == null) {
+                into = new ArrayList<>();
+            }
+            for (AffixEffect effect : effects) {
+                into.add(effect);
+            }
+        }
+        return into;
+    }
+}
@@ -4,37 +4,40 @@ import net.minecraft.util.Formatting;
 
 /**
  * 词缀稀有度枚举
+ * 每个稀有度带有颜色和随机权重
  */
 public enum AffixRarity {
     /**
      * 普通稀有度，白色
      */
-    COMMON(Formatting.WHITE),
+    COMMON(Formatting.WHITE, 100),
     
     /**
      * 魔法稀有度，蓝色
      */
-    MAGIC(Formatting.BLUE),
+    MAGIC(Formatting.BLUE, 50),
     
     /**
      * 稀有稀有度，黄色
      */
-    RARE(Formatting.YELLOW),
+    RARE(Formatting.YELLOW, 20),
     
     /**
      * 史诗稀有度，紫色
      */
-    EPIC(Formatting.LIGHT_PURPLE),
+    EPIC(Formatting.LIGHT_PURPLE, 8),
     
     /**
      * 传说稀有度，金色
      */
-    LEGENDARY(Formatting.GOLD);
+    LEGENDARY(Formatting.GOLD, 2);
     
     private final Formatting color;
+    private final int weight;
     
-    AffixRarity(Formatting color) {
+    AffixRarity(Formatting color, int weight) {
         this.color = color;
+        this.weight = weight;
     }
     
     /**
@@ -45,4 +48,13 @@ public enum AffixRarity {
     public Formatting getColor() {
         return color;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 获取稀有度对应的随机权重，数值越大越容易被抽中
+     * 
+     * @return 每个该稀有度词缀的权重
+     */
+    public int getWeight() {
+        return weight;
+    }
+}
@@ -7,8 +7,6 @@ import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
 
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,6 +28,9 @@ public class AffixRegistry {
     
     // 缓存词缀ID，减少对象创建
     private static final Map<String, Identifier> ID_CACHE = new HashMap<>();
+    
+    // 按物品类型和稀有度分桶的抽样表，注册表变化后在下次使用时重建
+    private static volatile AffixSampler sampler;
 
     /**
      * 注册一个词缀
@@ -40,7 +41,9 @@ public class AffixRegistry {
         if (affix == null) {
             return;
         }
+        affix.resolve();
         AFFIXES.put(affix.getId(), affix);
+        sampler = null;
         JustDying.AFFIX_LOGGER.debug("注册词缀: {}", affix.getId());
     }
 
@@ -57,24 +60,44 @@ public class AffixRegistry {
     /**
      * 获取所有词缀
      * 
-     * @return 所有词缀的列表副本
+     * @return 所有词缀的不可变列表
      */
     public static List<Affix> getAllAffixes() {
-        return AFFIXES.isEmpty() ? Collections.emptyList() : new ArrayList<>(AFFIXES.values());
+        return getSampler().getAllAffixes();
     }
 
     /**
-     * 随机获取一个词缀
+     * 按稀有度权重随机获取一个词缀
      * 
      * @return 随机词缀，如果没有可用词缀则返回null
      */
     public static Affix getRandomAffix() {
-        List<Affix> affixes = getAllAffixes();
-        if (affixes.isEmpty()) {
+        return getSampler().sample(null, ThreadLocalRandom.current());
+    }
+    
+    /**
+     * 按稀有度权重随机获取一个适用于指定物品类型的词缀
+     * 
+     * @param itemType 物品类型
+     * @return 随机词缀，如果没有适用的词缀则返回null
+     */
+    public static Affix getRandomAffix(String itemType) {
+        if (itemType == null) {
             return null;
         }
-        int index = ThreadLocalRandom.current().nextInt(affixes.size());
-        return affixes.get(index);
+        return getSampler().sample(itemType, ThreadLocalRandom.current());
+    }
+    
+    /**
+     * 获取抽样表，注册表变化后重新构建
+     */
+    private static AffixSampler getSampler() {
+        AffixSampler current = sampler;
+        if (current == null) {
+            current = AffixSampler.build(AFFIXES.values());
+            sampler = current;
+        }
+        return current;
     }
 
     /**
@@ -166,8 +189,9 @@ public class AffixRegistry {
                 addAffixEffect(affix, entry.effect);
             }
             
-            // 设置物品类型
+            // 设置物品类型和稀有度
             affix.setItemType(entry.itemType.name());
+            affix.setRarity(entry.rarity);
             
             // 注册词缀
             register(affix);
@@ -243,8 +267,10 @@ public class AffixRegistry {
      * 重新加载词缀配置
      */
     public static void reload() {
-        // 清空词缀集合
+        // 清空词缀集合，物品上的精简词缀需要按新的定义重新解码
         AFFIXES.clear();
+        sampler = null;
+        AffixCache.invalidateAll();
         initialized = false;
         loadFromConfig();
     }
@@ -0,0 +1,139 @@
+package com.justdie.affix;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 按物品类型和稀有度预先分桶的词缀抽样表
+ * 在注册表变化后构建一次，之后每次抽取只需两次随机数和最多五次比较，不分配任何对象
+ *
+ * 每个词缀的权重等于其稀有度的权重，先按桶的总权重选出稀有度，再在桶内等概率选择
+ */
+final class AffixSampler {
+    private static final String[] ITEM_TYPES = {
+            Affix.ITEM_TYPE_WEAPON, Affix.ITEM_TYPE_ARMOR, Affix.ITEM_TYPE_TOOL
+    };
+
+    private final List<Affix> allAffixes;
+    private final Table anyTable;
+    private final Table[] itemTypeTables;
+
+    private AffixSampler(List<Affix> allAffixes, Table anyTable, Table[] itemTypeTables) {
+        this.allAffixes = allAffixes;
+        this.anyTable = anyTable;
+        this.itemTypeTables = itemTypeTables;
+    }
+
+    /**
+     * 根据当前注册的词缀构建抽样表
+     *
+     * @param affixes 所有注册的词缀
+     * @return 抽样表
+     */
+    static AffixSampler build(Collection<Affix> affixes) {
+        List<Affix> all = Collections.unmodifiableList(new ArrayList<>(affixes));
+        Table[] itemTypeTables = new Table[ITEM_TYPES.length];
+        for (int i = 0; i < ITEM_TYPES.length; i++) {
+            itemTypeTables[i] = Table.build(all, ITEM_TYPES[i]);
+        }
+        return new AffixSampler(all, Table.build(all, null), itemTypeTables);
+    }
+
+    /**
+     * 获取所有词缀的不可变列表
+     */
+    List<Affix> getAllAffixes() {
+        return allAffixes;
+    }
+
+    /**
+     * 抽取一个适用于指定物品类型的词缀
+     *
+     * @param itemType 物品类型，为null时从所有词缀中抽取
+     * @param random 随机数生成器
+     * @return 抽中的词缀，没有适用的词缀时返回null
+     */
+    Affix sample(String itemType, Random random) {
+        if (itemType == null) {
+            return anyTable.sample(random);
+        }
+
+        for (int i = 0; i < ITEM_TYPES.length; i++) {
+            if (ITEM_TYPES[i].equals(itemType)) {
+                return itemTypeTables[i].sample(random);
+            }
+        }
+
+        // 未知物品类型只能使用通用词缀
+        return null;
+    }
+
+    /**
+     * 单个物品类型的抽样表，按稀有度分桶并记录累计权重
+     */
+    private static final class Table {
+        private final Affix[][] buckets;
+        private final int[] cumulativeWeights;
+        private final int totalWeight;
+
+        private Table(Affix[][] buckets, int[] cumulativeWeights, int totalWeight) {
+            this.buckets = buckets;
+            this.cumulativeWeights = cumulativeWeights;
+            this.totalWeight = totalWeight;
+        }
+
+        /**
+         * 构建抽样表，只保留非空的稀有度桶
+         *
+         * @param affixes 所有词缀
+         * @param itemType 物品类型，为null时包含所有词缀
+         */
+        static Table build(List<Affix> affixes, String itemType) {
+            AffixRarity[] rarities = AffixRarity.values();
+            List<Affix[]> buckets = new ArrayList<>(rarities.length);
+            List<Integer> weights = new ArrayList<>(rarities.length);
+
+            for (AffixRarity rarity : rarities) {
+                List<Affix> bucket = new ArrayList<>();
+                for (Affix affix : affixes) {
+                    if (affix.getRarity() == rarity && (itemType == null || affix.isApplicableTo(itemType))) {
+                        bucket.add(affix);
+                    }
+                }
+
+                if (!bucket.isEmpty() && rarity.getWeight() > 0) {
+                    buckets.add(bucket.toArray(new Affix[0]));
+                    weights.add(rarity.getWeight() * bucket.size());
+                }
+            }
+
+            int[] cumulativeWeights = new int[weights.size()];
+            int total = 0;
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                total += weights.get(i);
+                cumulativeWeights[i] = total;
+            }
+
+            return new Table(buckets.toArray(new Affix[0][]), cumulativeWeights, total);
+        }
+
+        Affix sample(Random random) {
+            if (totalWeight <= 0) {
+                return null;
+            }
+
+            int roll = random.nextInt(totalWeight);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (roll < cumulativeWeights[i]) {
+                    Affix[] bucket = buckets[i];
+                    return bucket[random.nextInt(bucket.length)];
+                }
+            }
+
+            return null;
+        }
+    }
+}
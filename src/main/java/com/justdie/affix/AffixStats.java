@@ -0,0 +1,33 @@
+package com.justdie.affix;
+
+/**
+ * 词缀系统的运行计数器
+ * 只在服务器主线程上累加，供调试命令读取，用于确认装备不变时没有多余的效果和属性同步
+ */
+public final class AffixStats {
+    // 被动效果施加次数，每次都可能产生一个效果更新数据包
+    static long passiveEffectApplications;
+    // 玩家属性修饰符的增删次数，每次都会使属性被标记为需要同步
+    static long attributeModifierUpdates;
+
+    private AffixStats() {
+    }
+
+    /**
+     * 获取被动效果施加的累计次数
+     *
+     * @return 累计次数
+     */
+    public static long getPassiveEffectApplications() {
+        return passiveEffectApplications;
+    }
+    
+    /**
+     * 获取玩家属性修饰符增删的累计次数
+     *
+     * @return 累计次数
+     */
+    public static long getAttributeModifierUpdates() {
+        return attributeModifierUpdates;
+    }
+}
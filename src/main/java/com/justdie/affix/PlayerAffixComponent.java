@@ -0,0 +1,69 @@
+package com.justdie.affix;
+
+import dev.onyxstudios.cca.api.v3.component.ComponentV3;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.nbt.NbtCompound;
+
+/**
+ * 玩家词缀运行时状态组件
+ * 保存装备指纹、按槽位排列的已应用属性修饰符、被动效果调度和战斗触发表，
+ * 生命周期与玩家实体一致，玩家离开或重生后随旧实体一起释放
+ *
+ * 这些状态都可以从玩家当前装备重新计算，所以不写入存档
+ */
+public class PlayerAffixComponent implements ComponentV3 {
+    static final AffixEventHandler.AppliedModifier[] NO_MODIFIERS = new AffixEventHandler.AppliedModifier[0];
+
+    private final AffixEquipmentTracker equipmentTracker = new AffixEquipmentTracker();
+    private final AffixEventHandler.AppliedModifier[][] modifiers = new AffixEventHandler.AppliedModifier[AffixEquipmentTracker.SLOTS.length][];
+    // 没有对应词缀时为null
+    private AffixPassiveEffects passiveEffects;
+    private AffixProcTable procTable;
+
+    public PlayerAffixComponent() {
+        for (int i = 0; i < modifiers.length; i++) {
+            modifiers[i] = NO_MODIFIERS;
+        }
+    }
+
+    AffixEquipmentTracker getEquipmentTracker() {
+        return equipmentTracker;
+    }
+
+    /**
+     * 获取槽位上已应用的词缀修饰符
+     */
+    AffixEventHandler.AppliedModifier[] getModifiers(EquipmentSlot slot) {
+        return modifiers[slot.ordinal()];
+    }
+
+    void setModifiers(EquipmentSlot slot, AffixEventHandler.AppliedModifier[] applied) {
+        modifiers[slot.ordinal()] = applied;
+    }
+
+    AffixPassiveEffects getPassiveEffects() {
+        return passiveEffects;
+    }
+
+    void setPassiveEffects(AffixPassiveEffects passiveEffects) {
+        this.passiveEffects = passiveEffects;
+    }
+
+    AffixProcTable getProcTable() {
+        return procTable;
+    }
+
+    void setProcTable(AffixProcTable procTable) {
+        this.procTable = procTable;
+    }
+
+    @Override
+    public void readFromNbt(NbtCompound tag) {
+        // 运行时状态，不从存档读取
+    }
+
+    @Override
+    public void writeToNbt(NbtCompound tag) {
+        // 运行时状态，不写入存档
+    }
+}
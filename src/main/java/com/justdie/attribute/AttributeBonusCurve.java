@@ -0,0 +1,51 @@
+package com.justdie.attribute;
+
+/**
+ * 属性加成曲线，决定属性点数如何换算为原版属性的加成值
+ */
+public enum AttributeBonusCurve {
+    /**
+     * 线性：加成 = 点数 × 乘数
+     */
+    LINEAR {
+        @Override
+        public double evaluate(int value, float multiplier, float parameter) {
+            return value * multiplier;
+        }
+    },
+
+    /**
+     * 收益递减：加成 = 点数 × 乘数 / (1 + 点数 / 参数)
+     * 参数为半饱和点，点数等于参数时加成为线性曲线的一半；参数不大于0时退化为线性
+     */
+    DIMINISHING {
+        @Override
+        public double evaluate(int value, float multiplier, float parameter) {
+            if (parameter <= 0) {
+                return LINEAR.evaluate(value, multiplier, parameter);
+            }
+            return value * multiplier / (1.0 + value / (double) parameter);
+        }
+    },
+
+    /**
+     * 阶梯：每满参数个点数才提供一次加成，参数小于1时按1计算
+     */
+    STEPPED {
+        @Override
+        public double evaluate(int value, float multiplier, float parameter) {
+            int step = Math.max(1, Math.round(parameter));
+            return Math.floorDiv(value, step) * step * (double) multiplier;
+        }
+    };
+
+    /**
+     * 计算属性点数对应的加成值
+     *
+     * @param value 属性点数
+     * @param multiplier 属性值乘数
+     * @param parameter 曲线参数
+     * @return 加成值
+     */
+    public abstract double evaluate(int value, float multiplier, float parameter);
+}
@@ -1,10 +1,12 @@
 package com.justdie.attribute;
 
 import com.justdie.JustDying;
+import com.justdie.affix.PlayerAffixComponent;
 import dev.onyxstudios.cca.api.v3.component.ComponentKey;
 import dev.onyxstudios.cca.api.v3.component.ComponentRegistry;
 import dev.onyxstudios.cca.api.v3.entity.EntityComponentFactoryRegistry;
 import dev.onyxstudios.cca.api.v3.entity.EntityComponentInitializer;
+import dev.onyxstudios.cca.api.v3.entity.RespawnCopyStrategy;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.util.Identifier;
 
@@ -18,9 +20,18 @@ public class AttributeComponents implements EntityComponentInitializer {
     public static final ComponentKey<PlayerAttributeComponent> PLAYER_ATTRIBUTES = 
             ComponentRegistry.getOrCreate(new Identifier(JustDying.MOD_ID, "player_attributes"), PlayerAttributeComponent.class);
     
+    /**
+     * 玩家词缀运行时状态组件的键
+     */
+    public static final ComponentKey<PlayerAffixComponent> PLAYER_AFFIXES = 
+            ComponentRegistry.getOrCreate(new Identifier(JustDying.MOD_ID, "player_affixes"), PlayerAffixComponent.class);
+    
     @Override
     public void registerEntityComponentFactories(EntityComponentFactoryRegistry registry) {
         // 注册玩家属性组件
         registry.registerFor(PlayerEntity.class, PLAYER_ATTRIBUTES, player -> new PlayerAttributeComponentImpl(player));
+        
+        // 注册玩家词缀状态组件，重生时不复制，由新玩家根据装备重新计算
+        registry.registerForPlayers(PLAYER_AFFIXES, player -> new PlayerAffixComponent(), RespawnCopyStrategy.NEVER_COPY);
     }
 } 
\ No newline at end of file
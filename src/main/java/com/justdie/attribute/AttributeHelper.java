@@ -47,6 +47,23 @@ public class AttributeHelper {
         }
     }
 
+    /**
+     * 按属性索引获取玩家的属性值
+     * 适合每tick读取属性的战斗和界面代码，索引可通过{@link AttributeManager#getAttributeIndex(Identifier)}预先获取
+     * 
+     * @param player 玩家
+     * @param index  属性索引
+     * @return 属性值，如果玩家或索引无效则返回0
+     */
+    public static int getAttributeValue(PlayerEntity player, int index) {
+        if (player == null) {
+            JustDying.LOGGER.warn(LOG_NULL_PLAYER);
+            return 0;
+        }
+
+        return AttributeComponents.PLAYER_ATTRIBUTES.get(player).getAttributeValue(index);
+    }
+
     /**
      * 获取玩家的属性值
      * 
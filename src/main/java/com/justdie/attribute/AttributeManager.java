@@ -6,7 +6,9 @@ import net.minecraft.entity.attribute.EntityAttribute;
 import net.minecraft.util.Identifier;
 import net.minecraft.registry.Registries;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
@@ -41,6 +43,10 @@ public class AttributeManager {
     // 按属性名称存储的属性映射，用于快速查找
     private static final Map<String, JustDyingAttribute> ATTRIBUTES_BY_NAME = new ConcurrentHashMap<>(INITIAL_CAPACITY);
     
+    // 按稠密索引排列的属性，索引按属性ID排序分配，服务端和客户端使用相同配置时一致
+    // 每次属性集合变化都会整体替换该数组，玩家数据通过比较数组引用判断布局是否变化
+    private static volatile JustDyingAttribute[] ATTRIBUTES_BY_INDEX = new JustDyingAttribute[0];
+    
     /**
      * 从配置加载所有属性
      * 
@@ -105,12 +111,25 @@ public class AttributeManager {
                 loadedAttributes, totalAttributes, failedAttributes);
     }
     
+    /**
+     * 按属性ID排序重新分配稠密索引
+     */
+    private static synchronized void reindex() {
+        JustDyingAttribute[] indexed = ATTRIBUTES.values().toArray(new JustDyingAttribute[0]);
+        Arrays.sort(indexed, Comparator.comparing(JustDyingAttribute::getId));
+        for (int i = 0; i < indexed.length; i++) {
+            indexed[i].setIndex(i);
+        }
+        ATTRIBUTES_BY_INDEX = indexed;
+    }
+    
     /**
      * 清除所有属性缓存
      */
     public static void clearCaches() {
         ATTRIBUTES.clear();
         ATTRIBUTES_BY_NAME.clear();
+        reindex();
         JustDying.LOGGER.debug(LOG_CACHE_CLEARED);
     }
     
@@ -174,6 +193,7 @@ public class AttributeManager {
         // 注册到两个映射表中
         ATTRIBUTES.put(id, attribute);
         ATTRIBUTES_BY_NAME.put(id.getPath(), attribute);
+        reindex();
     }
     
     /**
@@ -222,6 +242,47 @@ public class AttributeManager {
         return Optional.ofNullable(attribute);
     }
     
+    /**
+     * 获取属性的稠密索引
+     * 
+     * @param id 属性ID
+     * @return 属性索引，属性不存在时返回-1
+     */
+    public static int getAttributeIndex(Identifier id) {
+        JustDyingAttribute attribute = id != null ? ATTRIBUTES.get(id) : null;
+        return attribute != null ? attribute.getIndex() : -1;
+    }
+    
+    /**
+     * 通过稠密索引获取属性
+     * 
+     * @param index 属性索引
+     * @return 属性，索引无效时返回null
+     */
+    public static JustDyingAttribute getAttributeByIndex(int index) {
+        JustDyingAttribute[] indexed = ATTRIBUTES_BY_INDEX;
+        return index >= 0 && index < indexed.length ? indexed[index] : null;
+    }
+    
+    /**
+     * 获取已注册属性的数量，即有效索引的上界
+     * 
+     * @return 属性数量
+     */
+    public static int getAttributeCount() {
+        return ATTRIBUTES_BY_INDEX.length;
+    }
+    
+    /**
+     * 获取按索引排列的属性数组，调用方不能修改
+     * 属性集合变化后返回新的数组，可以用引用比较判断索引布局是否变化
+     * 
+     * @return 按索引排列的属性
+     */
+    static JustDyingAttribute[] getIndexedAttributes() {
+        return ATTRIBUTES_BY_INDEX;
+    }
+    
     /**
      * 获取所有已注册的属性
      * 
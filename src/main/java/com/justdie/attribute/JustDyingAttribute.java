@@ -29,13 +29,19 @@ public class JustDyingAttribute {
     private final Item iconItem;
     private final EntityAttribute vanillaAttribute;
 
-    // 缓存值计算，避免重复计算
-    private double lastCalculatedValue = 0;
-    private int lastAttributeValue = -1;
+    // 加成曲线及其在[minValue, maxValue]上的预计算结果，范围变化时整体替换
+    // 预计算表最多保存的项数，超出部分直接按曲线计算
+    private static final int MAX_BONUS_TABLE_SIZE = 4096;
+    private final AttributeBonusCurve bonusCurve;
+    private final float curveParameter;
+    private volatile double[] bonusTable;
 
     // 修饰符ID
     private final UUID modifierId;
 
+    // 由AttributeManager分配的稠密索引，未注册时为-1
+    private int index = -1;
+
     /**
      * 初始化属性
      * 
@@ -59,6 +65,37 @@ public class JustDyingAttribute {
             int initialValue,
             float valueMultiplier,
             EntityAttribute vanillaAttribute) {
+        this(id, name, description, iconItem, minValue, maxValue, initialValue, valueMultiplier, vanillaAttribute,
+                AttributeBonusCurve.LINEAR, 0.0f);
+    }
+
+    /**
+     * 初始化属性
+     * 
+     * @param id               属性ID
+     * @param name             属性名称
+     * @param description      属性描述
+     * @param iconItem         属性图标
+     * @param minValue         最小值
+     * @param maxValue         最大值
+     * @param initialValue     初始值
+     * @param valueMultiplier  属性值乘数（用于计算实际影响）
+     * @param vanillaAttribute 关联的原版属性
+     * @param bonusCurve       加成曲线
+     * @param curveParameter   加成曲线参数
+     */
+    public JustDyingAttribute(
+            Identifier id,
+            Text name,
+            Text description,
+            Item iconItem,
+            int minValue,
+            int maxValue,
+            int initialValue,
+            float valueMultiplier,
+            EntityAttribute vanillaAttribute,
+            AttributeBonusCurve bonusCurve,
+            float curveParameter) {
         // 参数验证
         this.id = Objects.requireNonNull(id, "属性ID不能为空");
         this.name = name != null ? name : Text.of(id.getPath());
@@ -70,8 +107,11 @@ public class JustDyingAttribute {
         this.initialValue = initialValue;
         this.valueMultiplier = valueMultiplier;
         this.vanillaAttribute = vanillaAttribute;
+        this.bonusCurve = bonusCurve != null ? bonusCurve : AttributeBonusCurve.LINEAR;
+        this.curveParameter = curveParameter;
 
         validateMaxValue(maxValue);
+        this.bonusTable = buildBonusTable(maxValue);
 
         // 为每个属性生成唯一的UUID作为修饰符ID
         this.modifierId = UUID.nameUUIDFromBytes(id.toString().getBytes());
@@ -119,7 +159,36 @@ public class JustDyingAttribute {
                 config.maxValue,
                 config.initialValue,
                 config.valueMultiplier,
-                vanillaAttribute);
+                vanillaAttribute,
+                config.bonusCurve,
+                config.curveParameter);
+    }
+
+    /**
+     * 获取原版属性修饰符的UUID，由属性ID确定，重启后保持不变
+     * 
+     * @return 修饰符UUID
+     */
+    public UUID getModifierId() {
+        return modifierId;
+    }
+
+    /**
+     * 获取属性的稠密索引，玩家属性数据按该索引存储在int数组中
+     * 
+     * @return 属性索引，未注册时返回-1
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * 设置属性索引，只由AttributeManager在加载属性时调用
+     * 
+     * @param index 属性索引
+     */
+    void setIndex(int index) {
+        this.index = index;
     }
 
     /**
@@ -186,6 +255,7 @@ public class JustDyingAttribute {
         try {
             // 验证新的最大值
             validateMaxValue(newMaxValue);
+            this.bonusTable = buildBonusTable(newMaxValue);
             this.maxValue = newMaxValue;
             return true;
         } catch (Exception e) {
@@ -222,24 +292,45 @@ public class JustDyingAttribute {
     }
 
     /**
-     * 计算属性对原版属性的实际影响值，使用缓存提高性能
+     * 获取加成曲线
+     * 
+     * @return 加成曲线
+     */
+    public AttributeBonusCurve getBonusCurve() {
+        return bonusCurve;
+    }
+
+    /**
+     * 在[minValue, maxValue]上预先计算加成值
+     * 最多保存{@link #MAX_BONUS_TABLE_SIZE}项，避免过大的最大值占用大量内存
+     * 
+     * @param upperBound 最大值
+     * @return 按 属性值 - minValue 索引的加成表
+     */
+    private double[] buildBonusTable(int upperBound) {
+        long size = (long) upperBound - minValue + 1;
+        double[] table = new double[(int) Math.max(0, Math.min(size, MAX_BONUS_TABLE_SIZE))];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = bonusCurve.evaluate(minValue + i, valueMultiplier, curveParameter);
+        }
+        return table;
+    }
+
+    /**
+     * 计算属性对原版属性的实际影响值
+     * 范围内的值直接查预计算表，表是不可变的，可以被多个线程同时读取
      * 
      * @param attributeValue 当前属性值
      * @return 对原版属性的影响值
      */
     public double calculateAttributeBonus(int attributeValue) {
-        // 使用缓存，避免重复计算
-        if (attributeValue == lastAttributeValue) {
-            return lastCalculatedValue;
+        double[] table = bonusTable;
+        int offset = attributeValue - minValue;
+        if (offset >= 0 && offset < table.length) {
+            return table[offset];
         }
 
-        double result = attributeValue * valueMultiplier;
-
-        // 更新缓存
-        lastAttributeValue = attributeValue;
-        lastCalculatedValue = result;
-
-        return result;
+        return bonusCurve.evaluate(attributeValue, valueMultiplier, curveParameter);
     }
 
     /**
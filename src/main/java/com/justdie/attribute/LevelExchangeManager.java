@@ -4,7 +4,6 @@ import com.justdie.JustDying;
 import com.justdie.config.JustDyingConfig;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.server.network.ServerPlayerEntity;
-import net.minecraft.util.Identifier;
 
 /**
  * 等级兑换管理器
@@ -21,6 +20,9 @@ public class LevelExchangeManager {
     // 移除等级上限或设置为极高的值
     private static final int MAX_LEVEL_REQUIRED = Integer.MAX_VALUE; // 修改为Integer.MAX_VALUE，实际上移除了上限
     
+    // 一次批量兑换最多获得的属性点，避免兑换消耗为0时无限兑换
+    private static final int MAX_BULK_EXCHANGE = 1000;
+    
     /**
      * 计算兑换所需的等级
      * 
@@ -35,21 +37,16 @@ public class LevelExchangeManager {
             return Integer.MAX_VALUE;
         }
         
-        // 计算玩家已使用的点数
-        int usedPoints = calculateUsedPoints(player);
-        
-        // 获取玩家当前可用的属性点
-        int availablePoints = AttributeHelper.getAvailablePoints(player);
-        
-        // 计算总点数 = 已使用点数 + 可用点数
-        int totalPoints = usedPoints + availablePoints;
+        // 总点数 = 已使用点数 + 可用点数，由组件增量维护
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        int totalPoints = component.getTotalPoints();
         
         // 计算所需等级 = 基础等级 + (总点数 * 等级乘数)
-        int requiredLevel = config.levelExchange.baseLevel + (totalPoints * config.levelExchange.levelMultiplier);
+        int requiredLevel = getBaseLevel(config) + (totalPoints * getLevelMultiplier(config));
         
         if (config.debug) {
-            JustDying.LOGGER.debug("玩家 {} 总点数: {}，已使用: {}，可用: {}，所需等级: {}", 
-                player.getName().getString(), totalPoints, usedPoints, availablePoints, requiredLevel);
+            JustDying.LOGGER.debug("玩家 {} 总点数: {}，已使用: {}，所需等级: {}", 
+                player.getName().getString(), totalPoints, component.getSpentPoints(), requiredLevel);
         }
         
         // 等级不再受到上限限制
@@ -57,26 +54,106 @@ public class LevelExchangeManager {
     }
     
     /**
-     * 计算玩家已使用的属性点数
+     * 配置中的基础等级，负数按0处理
+     * 单次兑换、批量兑换和客户端预测都通过这里读取，保证消耗一致
+     */
+    private static int getBaseLevel(JustDyingConfig config) {
+        return Math.max(0, config.levelExchange.baseLevel);
+    }
+    
+    /**
+     * 配置中的等级乘数，负数按0处理
+     */
+    private static int getLevelMultiplier(JustDyingConfig config) {
+        return Math.max(0, config.levelExchange.levelMultiplier);
+    }
+    
+    /**
+     * 计算从当前总点数开始连续兑换若干点所需的总等级
+     * 第i点（从0开始）的消耗为 基础等级 + (总点数 + i) * 等级乘数，求和为等差数列
+     * 
+     * @param totalPoints 当前属性点总数
+     * @param count 兑换的点数
+     * @param baseLevel 基础等级
+     * @param levelMultiplier 等级乘数
+     * @return 所需的总等级
+     */
+    static long calculateBulkCost(int totalPoints, long count, int baseLevel, int levelMultiplier) {
+        return count * baseLevel + levelMultiplier * (count * totalPoints + count * (count - 1) / 2);
+    }
+    
+    /**
+     * 计算玩家用当前等级最多可以兑换的属性点数
+     * 先用二次方程的解析解估计，再用整数运算修正浮点误差
      * 
      * @param player 玩家
-     * @return 玩家已使用的属性点数
+     * @return 可兑换的属性点数
      */
-    private static int calculateUsedPoints(PlayerEntity player) {
-        int totalUsed = 0;
-        
-        // 遍历所有属性，计算每个属性使用的点数
-        for (JustDyingAttribute attribute : AttributeManager.getAllAttributes()) {
-            Identifier id = attribute.getId();
-            int currentValue = AttributeHelper.getAttributeValue(player, id);
-            int initialValue = attribute.getInitialValue();
-            
-            // 使用的点数 = 当前值 - 初始值
-            int used = currentValue - initialValue;
-            totalUsed += Math.max(0, used); // 确保不计算负值
+    public static int calculateAffordablePoints(PlayerEntity player) {
+        JustDyingConfig config = JustDying.getConfig();
+        if (!config.levelExchange.enableLevelExchange || player == null) {
+            return 0;
+        }
+        
+        int base = getBaseLevel(config);
+        int multiplier = getLevelMultiplier(config);
+        int totalPoints = AttributeComponents.PLAYER_ATTRIBUTES.get(player).getTotalPoints();
+        long levels = player.experienceLevel;
+        
+        long estimate;
+        if (multiplier == 0) {
+            estimate = base == 0 ? MAX_BULK_EXCHANGE : levels / base;
+        } else {
+            // (m/2)k^2 + (base + m*T - m/2)k - L <= 0 的正根
+            double a = multiplier / 2.0;
+            double b = base + (double) multiplier * totalPoints - a;
+            estimate = (long) Math.floor((-b + Math.sqrt(b * b + 4 * a * levels)) / (2 * a));
+        }
+        
+        long count = Math.max(0, Math.min(estimate, MAX_BULK_EXCHANGE));
+        while (count > 0 && calculateBulkCost(totalPoints, count, base, multiplier) > levels) {
+            count--;
+        }
+        while (count < MAX_BULK_EXCHANGE && calculateBulkCost(totalPoints, count + 1, base, multiplier) <= levels) {
+            count++;
+        }
+        return (int) count;
+    }
+    
+    /**
+     * 一次性把玩家能负担的等级全部兑换为属性点
+     * 
+     * @param player 玩家
+     * @return 兑换得到的属性点数，为0表示没有兑换
+     */
+    public static int exchangeMaxLevelsForPoints(ServerPlayerEntity player) {
+        if (player == null) {
+            return 0;
+        }
+        
+        JustDyingConfig config = JustDying.getConfig();
+        int count = calculateAffordablePoints(player);
+        if (count <= 0) {
+            if (config.debug) {
+                JustDying.LOGGER.debug(DEBUG_EXCHANGE_FAILED);
+            }
+            return 0;
+        }
+        
+        int totalPoints = AttributeComponents.PLAYER_ATTRIBUTES.get(player).getTotalPoints();
+        long cost = calculateBulkCost(totalPoints, count, getBaseLevel(config), getLevelMultiplier(config));
+        
+        // 扣除等级，增加属性点
+        player.addExperienceLevels((int) -cost);
+        AttributeHelper.addPoints(player, count);
+        
+        if (config.debug) {
+            JustDying.LOGGER.debug("玩家 {} 批量兑换 {} 点，消耗 {} 级", player.getName().getString(), count, cost);
+            JustDying.LOGGER.debug(DEBUG_EXCHANGE_SUCCESS, 
+                    player.experienceLevel, AttributeHelper.getAvailablePoints(player));
         }
         
-        return totalUsed;
+        return count;
     }
     
     /**
@@ -105,7 +182,7 @@ public class LevelExchangeManager {
             JustDying.LOGGER.debug(DEBUG_PLAYER_EXCHANGE, 
                     player.getName().getString(), currentLevel, availablePoints);
             
-            int usedPoints = calculateUsedPoints(player);
+            int usedPoints = AttributeComponents.PLAYER_ATTRIBUTES.get(player).getSpentPoints();
             JustDying.LOGGER.debug(DEBUG_POINTS_USED, 
                     player.getName().getString(), usedPoints, availablePoints, usedPoints + availablePoints);
         }
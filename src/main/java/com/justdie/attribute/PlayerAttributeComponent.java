@@ -31,6 +31,44 @@ public interface PlayerAttributeComponent extends ComponentV3 {
      */
     void addAttributeValue(Identifier attributeId, int amount);
     
+    /**
+     * 按属性索引获取属性值
+     * 
+     * @param index 属性索引，见{@link AttributeManager#getAttributeIndex(Identifier)}
+     * @return 属性值
+     */
+    int getAttributeValue(int index);
+    
+    /**
+     * 按属性索引设置属性值
+     * 
+     * @param index 属性索引
+     * @param value 新的属性值
+     */
+    void setAttributeValue(int index, int value);
+    
+    /**
+     * 按属性索引增加属性值
+     * 
+     * @param index 属性索引
+     * @param amount 增加的数量
+     */
+    void addAttributeValue(int index, int amount);
+    
+    /**
+     * 获取已花费的属性点数
+     * 
+     * @return 各属性高于初始值部分之和
+     */
+    int getSpentPoints();
+    
+    /**
+     * 获取属性点总数，即已花费点数与可用点数之和
+     * 
+     * @return 属性点总数
+     */
+    int getTotalPoints();
+    
     /**
      * 更新所有原版属性
      */
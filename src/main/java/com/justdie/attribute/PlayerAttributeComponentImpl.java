@@ -36,6 +36,31 @@ public class PlayerAttributeComponentImpl implements PlayerAttributeComponent {
         attributeData.addAttributeValue(attributeId, amount);
     }
     
+    @Override
+    public int getAttributeValue(int index) {
+        return attributeData.getAttributeValue(index);
+    }
+    
+    @Override
+    public void setAttributeValue(int index, int value) {
+        attributeData.setAttributeValue(index, value);
+    }
+    
+    @Override
+    public void addAttributeValue(int index, int amount) {
+        attributeData.addAttributeValue(index, amount);
+    }
+    
+    @Override
+    public int getSpentPoints() {
+        return attributeData.getSpentPoints();
+    }
+    
+    @Override
+    public int getTotalPoints() {
+        return attributeData.getSpentPoints() + availablePoints;
+    }
+    
     @Override
     public void updateAllVanillaAttributes() {
         attributeData.updateAllVanillaAttributes();
@@ -8,22 +8,39 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.util.Identifier;
 
-import java.util.HashMap;
-import java.util.Map;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
  * 玩家属性数据，存储玩家的所有属性值
  */
 public class PlayerAttributeData {
-    // 用于属性修饰符的UUID，每个属性使用不同的UUID
-    private static final Map<Identifier, UUID> ATTRIBUTE_MODIFIER_UUIDS = new HashMap<>();
+    // 有待应用的原版属性变化、等待在tick结束时统一刷新的玩家（只在服务端使用）
+    private static final Set<PlayerAttributeData> PENDING_FLUSH = new LinkedHashSet<>();
     
     // 属性修饰符的名称前缀
     private static final String ATTRIBUTE_MODIFIER_NAME_PREFIX = "justdying.attribute.";
     
-    // 玩家的属性值
-    private final Map<Identifier, Integer> attributeValues = new HashMap<>();
+    // 玩家的属性值，按AttributeManager分配的属性索引存储
+    private int[] attributeValues;
+    
+    // attributeValues对应的属性布局，与AttributeManager当前布局不同时需要重新映射
+    private JustDyingAttribute[] layout;
+    
+    // 以下数组与layout按索引对齐：需要刷新的属性、缓存的原版属性实例、最近一次应用的加成值（NaN表示未知）
+    private boolean[] dirty;
+    private EntityAttributeInstance[] instances;
+    private double[] appliedBonuses;
+    private boolean anyDirty;
+    
+    // 已花费的属性点数，即各属性高于初始值部分之和，随属性变化增量维护
+    private int spentPoints;
     
     // 玩家引用
     private final PlayerEntity player;
@@ -37,9 +54,101 @@ public class PlayerAttributeData {
         this.player = player;
         
         // 初始化所有属性为初始值
-        for (JustDyingAttribute attribute : AttributeManager.getAllAttributes()) {
-            attributeValues.put(attribute.getId(), attribute.getInitialValue());
+        this.layout = AttributeManager.getIndexedAttributes();
+        this.attributeValues = new int[layout.length];
+        for (int i = 0; i < layout.length; i++) {
+            attributeValues[i] = layout[i].getInitialValue();
+        }
+        resetVanillaState();
+    }
+    
+    /**
+     * 注册服务器tick事件，每tick结束时统一刷新有变化的原版属性
+     */
+    public static void register() {
+        ServerTickEvents.END_SERVER_TICK.register(server -> flushPending());
+    }
+    
+    /**
+     * 刷新所有等待中的玩家
+     */
+    public static void flushPending() {
+        if (PENDING_FLUSH.isEmpty()) {
+            return;
+        }
+        
+        List<PlayerAttributeData> pending = new ArrayList<>(PENDING_FLUSH);
+        PENDING_FLUSH.clear();
+        for (PlayerAttributeData data : pending) {
+            if (!data.player.isRemoved()) {
+                data.flushVanillaAttributes();
+            }
+        }
+    }
+    
+    /**
+     * 按当前布局重置原版属性的缓存状态，所有属性都标记为需要刷新
+     */
+    private void resetVanillaState() {
+        this.dirty = new boolean[layout.length];
+        this.instances = new EntityAttributeInstance[layout.length];
+        this.appliedBonuses = new double[layout.length];
+        Arrays.fill(appliedBonuses, Double.NaN);
+        markAllDirty();
+    }
+    
+    /**
+     * 属性重新加载后按属性ID把旧值映射到新的索引布局，新增的属性使用初始值
+     */
+    private void ensureLayout() {
+        JustDyingAttribute[] current = AttributeManager.getIndexedAttributes();
+        if (current == layout) {
+            return;
+        }
+        
+        int[] remapped = new int[current.length];
+        for (int i = 0; i < current.length; i++) {
+            remapped[i] = current[i].getInitialValue();
+            for (int j = 0; j < layout.length; j++) {
+                if (layout[j].getId().equals(current[i].getId())) {
+                    remapped[i] = attributeValues[j];
+                    break;
+                }
+            }
         }
+        
+        this.attributeValues = remapped;
+        this.layout = current;
+        recalculateSpentPoints();
+        resetVanillaState();
+    }
+    
+    /**
+     * 单个属性花费的点数
+     */
+    private int spentPointsOf(int index) {
+        return Math.max(0, attributeValues[index] - layout[index].getInitialValue());
+    }
+    
+    /**
+     * 重新统计已花费的属性点数，只在布局变化或加载存档时调用
+     */
+    private void recalculateSpentPoints() {
+        int total = 0;
+        for (int i = 0; i < layout.length; i++) {
+            total += spentPointsOf(i);
+        }
+        this.spentPoints = total;
+    }
+    
+    /**
+     * 获取已花费的属性点数
+     * 
+     * @return 各属性高于初始值部分之和
+     */
+    public int getSpentPoints() {
+        ensureLayout();
+        return spentPoints;
     }
     
     /**
@@ -49,7 +158,18 @@ public class PlayerAttributeData {
      * @return 属性值，如果属性不存在则返回0
      */
     public int getAttributeValue(Identifier attributeId) {
-        return attributeValues.getOrDefault(attributeId, 0);
+        return getAttributeValue(AttributeManager.getAttributeIndex(attributeId));
+    }
+    
+    /**
+     * 按属性索引获取属性值
+     * 
+     * @param index 属性索引，见{@link AttributeManager#getAttributeIndex(Identifier)}
+     * @return 属性值，如果索引无效则返回0
+     */
+    public int getAttributeValue(int index) {
+        ensureLayout();
+        return index >= 0 && index < attributeValues.length ? attributeValues[index] : 0;
     }
     
     /**
@@ -59,16 +179,33 @@ public class PlayerAttributeData {
      * @param value 新的属性值
      */
     public void setAttributeValue(Identifier attributeId, int value) {
-        AttributeManager.getAttribute(attributeId).ifPresent(attribute -> {
-            // 确保值在有效范围内
-            int clampedValue = Math.max(attribute.getMinValue(), Math.min(attribute.getMaxValue(), value));
-            
-            // 更新属性值
-            attributeValues.put(attributeId, clampedValue);
-            
-            // 更新玩家的原版属性
-            updateVanillaAttribute(attribute, clampedValue);
-        });
+        setAttributeValue(AttributeManager.getAttributeIndex(attributeId), value);
+    }
+    
+    /**
+     * 按属性索引设置属性值
+     * 
+     * @param index 属性索引
+     * @param value 新的属性值
+     */
+    public void setAttributeValue(int index, int value) {
+        ensureLayout();
+        if (index < 0 || index >= attributeValues.length) {
+            return;
+        }
+        
+        JustDyingAttribute attribute = layout[index];
+        
+        // 确保值在有效范围内
+        int clampedValue = Math.max(attribute.getMinValue(), Math.min(attribute.getMaxValue(), value));
+        
+        // 更新属性值，原版属性在tick结束时统一刷新
+        if (attributeValues[index] != clampedValue) {
+            spentPoints -= spentPointsOf(index);
+            attributeValues[index] = clampedValue;
+            spentPoints += spentPointsOf(index);
+            markDirty(index);
+        }
     }
     
     /**
@@ -78,89 +215,155 @@ public class PlayerAttributeData {
      * @param amount 增加的数量
      */
     public void addAttributeValue(Identifier attributeId, int amount) {
-        int currentValue = getAttributeValue(attributeId);
-        setAttributeValue(attributeId, currentValue + amount);
+        addAttributeValue(AttributeManager.getAttributeIndex(attributeId), amount);
     }
     
     /**
-     * 更新玩家的原版属性
+     * 按属性索引增加属性值
+     * 
+     * @param index 属性索引
+     * @param amount 增加的数量
+     */
+    public void addAttributeValue(int index, int amount) {
+        setAttributeValue(index, getAttributeValue(index) + amount);
+    }
+    
+    /**
+     * 标记属性需要刷新原版属性，并在服务端加入tick结束时的刷新队列
+     * 
+     * @param index 属性索引
+     */
+    private void markDirty(int index) {
+        dirty[index] = true;
+        anyDirty = true;
+        enqueue();
+    }
+    
+    /**
+     * 标记所有属性需要刷新
+     */
+    private void markAllDirty() {
+        Arrays.fill(dirty, true);
+        anyDirty = dirty.length > 0;
+        enqueue();
+    }
+    
+    private void enqueue() {
+        if (anyDirty && player != null && !player.getWorld().isClient) {
+            PENDING_FLUSH.add(this);
+        }
+    }
+    
+    /**
+     * 标记属性的原版加成需要重新计算，例如属性上限变化后
      * 
      * @param attribute 属性
-     * @param value 属性值
      */
-    public void updateVanillaAttribute(JustDyingAttribute attribute, int value) {
-        if (attribute.getVanillaAttribute() == null || player == null) {
-            JustDying.LOGGER.debug("Cannot update vanilla attribute for {}: attribute or player is null", 
-                    attribute != null ? attribute.getId() : "null");
+    public void markVanillaAttributeDirty(JustDyingAttribute attribute) {
+        ensureLayout();
+        int index = attribute.getIndex();
+        if (index >= 0 && index < layout.length && layout[index] == attribute) {
+            markDirty(index);
+        }
+    }
+    
+    /**
+     * 立即应用所有被标记的属性，只有加成值真正变化的属性才会修改原版属性修饰符
+     */
+    public void flushVanillaAttributes() {
+        ensureLayout();
+        if (!anyDirty || player == null) {
+            return;
+        }
+        
+        anyDirty = false;
+        for (int i = 0; i < layout.length; i++) {
+            if (dirty[i]) {
+                dirty[i] = false;
+                applyVanillaAttribute(i);
+            }
+        }
+    }
+    
+    /**
+     * 把属性加成应用到玩家的原版属性
+     * 
+     * @param index 属性索引
+     */
+    private void applyVanillaAttribute(int index) {
+        JustDyingAttribute attribute = layout[index];
+        if (attribute.getVanillaAttribute() == null) {
+            return;
+        }
+        
+        // 计算属性加成值，与上次应用的相同时不做任何事
+        double bonus = attribute.calculateAttributeBonus(attributeValues[index]);
+        if (bonus == appliedBonuses[index]) {
             return;
         }
         
         try {
-            // 获取属性实例
-            EntityAttributeInstance instance = player.getAttributeInstance(attribute.getVanillaAttribute());
+            EntityAttributeInstance instance = instances[index];
             if (instance == null) {
-                JustDying.LOGGER.warn("Cannot update vanilla attribute for {}: player does not have attribute instance", 
-                        attribute.getId());
-                return;
+                instance = player.getAttributeInstance(attribute.getVanillaAttribute());
+                if (instance == null) {
+                    JustDying.LOGGER.warn("Cannot update vanilla attribute for {}: player does not have attribute instance", 
+                            attribute.getId());
+                    return;
+                }
+                instances[index] = instance;
             }
             
-            // 获取或创建属性修饰符的UUID
-            UUID modifierId = getAttributeModifierUuid(attribute.getId());
+            UUID modifierId = attribute.getModifierId();
+            String modifierName = ATTRIBUTE_MODIFIER_NAME_PREFIX + attribute.getId().getPath();
+            
+            // 首次应用时清理旧版本使用随机UUID保存的同名修饰符
+            if (Double.isNaN(appliedBonuses[index])) {
+                removeLegacyModifiers(instance, modifierId, modifierName);
+            }
             
-            // 移除现有的修饰符
+            // 玩家存档中已有相同数值的修饰符时沿用
             EntityAttributeModifier existingModifier = instance.getModifier(modifierId);
             if (existingModifier != null) {
+                if (bonus > 0 && existingModifier.getValue() == bonus 
+                        && existingModifier.getOperation() == EntityAttributeModifier.Operation.ADDITION) {
+                    appliedBonuses[index] = bonus;
+                    return;
+                }
                 instance.removeModifier(modifierId);
             }
             
-            // 计算属性加成值
-            double bonus = attribute.calculateAttributeBonus(value);
-            
-            // 特殊处理防御属性
-            boolean isDefenseAttribute = attribute.getId().getPath().equals("defense");
-            
-            // 创建新的修饰符并应用
             if (bonus > 0) {
-                EntityAttributeModifier modifier = new EntityAttributeModifier(
+                instance.addPersistentModifier(new EntityAttributeModifier(
                         modifierId,
-                        ATTRIBUTE_MODIFIER_NAME_PREFIX + attribute.getId().getPath(),
+                        modifierName,
                         bonus,
                         EntityAttributeModifier.Operation.ADDITION
-                );
-                
-                // 先移除再添加，确保修饰符被正确应用
-                instance.removeModifier(modifierId);
-                instance.addPersistentModifier(modifier);
-                
-                if (isDefenseAttribute) {
-                    JustDying.LOGGER.debug("Applied defense modifier: {} with value {}", 
-                            modifier.getName(), modifier.getValue());
-                }
+                ));
             }
+            appliedBonuses[index] = bonus;
         } catch (Exception e) {
             JustDying.LOGGER.error("Failed to update vanilla attribute for {}: {}", attribute.getId(), e.getMessage());
         }
     }
     
     /**
-     * 获取属性修饰符的UUID
-     * 
-     * @param attributeId 属性ID
-     * @return UUID
+     * 移除与当前修饰符同名但UUID不同的旧修饰符
      */
-    private static UUID getAttributeModifierUuid(Identifier attributeId) {
-        return ATTRIBUTE_MODIFIER_UUIDS.computeIfAbsent(attributeId, id -> UUID.randomUUID());
+    private static void removeLegacyModifiers(EntityAttributeInstance instance, UUID modifierId, String modifierName) {
+        for (EntityAttributeModifier modifier : List.copyOf(instance.getModifiers())) {
+            if (modifierName.equals(modifier.getName()) && !modifierId.equals(modifier.getId())) {
+                instance.removeModifier(modifier.getId());
+            }
+        }
     }
     
     /**
-     * 更新所有原版属性
+     * 更新所有原版属性，在tick结束时应用
      */
     public void updateAllVanillaAttributes() {
-        for (Map.Entry<Identifier, Integer> entry : attributeValues.entrySet()) {
-            AttributeManager.getAttribute(entry.getKey()).ifPresent(attribute -> {
-                updateVanillaAttribute(attribute, entry.getValue());
-            });
-        }
+        ensureLayout();
+        markAllDirty();
     }
     
     /**
@@ -175,15 +378,16 @@ public class PlayerAttributeData {
         
         NbtCompound attributesNbt = nbt.getCompound("Attributes");
         
-        for (JustDyingAttribute attribute : AttributeManager.getAllAttributes()) {
-            String key = attribute.getId().toString();
+        ensureLayout();
+        for (int i = 0; i < layout.length; i++) {
+            String key = layout[i].getId().toString();
             if (attributesNbt.contains(key, NbtElement.INT_TYPE)) {
-                int value = attributesNbt.getInt(key);
-                attributeValues.put(attribute.getId(), value);
+                attributeValues[i] = attributesNbt.getInt(key);
             }
         }
+        recalculateSpentPoints();
         
-        // 更新所有原版属性
+        // 原版属性修饰符随玩家存档一起加载，刷新时只会修改数值不一致的属性
         updateAllVanillaAttributes();
     }
     
@@ -195,8 +399,9 @@ public class PlayerAttributeData {
     public void writeToNbt(NbtCompound nbt) {
         NbtCompound attributesNbt = new NbtCompound();
         
-        for (Map.Entry<Identifier, Integer> entry : attributeValues.entrySet()) {
-            attributesNbt.putInt(entry.getKey().toString(), entry.getValue());
+        ensureLayout();
+        for (int i = 0; i < layout.length; i++) {
+            attributesNbt.putInt(layout[i].getId().toString(), attributeValues[i]);
         }
         
         nbt.put("Attributes", attributesNbt);
@@ -208,8 +413,7 @@ public class PlayerAttributeData {
      * @param attribute 要初始化的属性
      */
     public void initAttribute(JustDyingAttribute attribute) {
-        if (!attributeValues.containsKey(attribute.getId())) {
-            attributeValues.put(attribute.getId(), attribute.getInitialValue());
-        }
+        // 新注册的属性在布局更新时以初始值加入
+        ensureLayout();
     }
 } 
\ No newline at end of file
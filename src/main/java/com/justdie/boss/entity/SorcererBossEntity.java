@@ -1,6 +1,10 @@
 package com.justdie.boss.entity;
 
 import com.justdie.boss.interfaces.IEntityTick;
+import com.justdie.boss.utils.BossWorkScheduler;
+import com.justdie.boss.utils.SafeYCache;
+import com.justdie.boss.utils.StuckDetector;
+import com.justdie.boss.utils.TeleportCandidatePool;
 import software.bernie.geckolib.core.animatable.GeoAnimatable;
 import software.bernie.geckolib.core.animatable.instance.AnimatableInstanceCache;
 import software.bernie.geckolib.core.animation.AnimatableManager;
@@ -47,6 +51,21 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
     // 攻击冷却
     private int attackCooldown = 0;
     private int teleportCooldown = 0;
+    // 后台预先查找的安全传送点：BOSS自身周围用于紧急传送，目标周围用于主动传送
+    private final TeleportCandidatePool teleportCandidates = new TeleportCandidatePool(6.0, 16.0);
+    private final TeleportCandidatePool targetTeleportCandidates = new TeleportCandidatePool(6.0, 10.0);
+
+    // 卡住检测：记录最近2秒的移动，停滞时才查询方块和碰撞
+    private static final int STUCK_HISTORY_TICKS = 40;
+    private static final int STUCK_BLOCK_CHECK_TICKS = 10;
+    private static final double STUCK_DISPLACEMENT_THRESHOLD = 0.3;
+    private final StuckDetector stuckDetector = new StuckDetector(STUCK_HISTORY_TICKS, STUCK_DISPLACEMENT_THRESHOLD);
+
+    // 周期性AI工作，由所在世界的调度器错开相位
+    private final BossWorkScheduler.Task postureTask = new BossWorkScheduler.Task(10, false);
+    private final BossWorkScheduler.Task retargetTask = new BossWorkScheduler.Task(20, true);
+    private final BossWorkScheduler.Task spellTask = new BossWorkScheduler.Task(40, true);
+    private final BossWorkScheduler.Task stuckCheckTask = new BossWorkScheduler.Task(STUCK_BLOCK_CHECK_TICKS, true);
 
     // 阶段管理
     private BossPhase currentPhase = BossPhase.PHASE_1;
@@ -213,6 +232,7 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
             this.setTeleporting(true);
             new SorcererTeleportGoal(this).emergencyTeleport();
             this.teleportCooldown = 20; // 短冷却
+            this.stuckDetector.reset();
         }
 
         // 防止倒地 - 保持实体垂直并限制Y轴速度
@@ -223,7 +243,7 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
         }
         
         // 每10个tick检查一次姿势，确保实体保持直立
-        if (this.age % 10 == 0) {
+        if (this.postureTask.poll(world)) {
             this.setNoGravity(true); // 禁用重力
             
             // 如果没有目标且在空中，缓慢下降
@@ -234,13 +254,13 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
 
         // 强制攻击检测 - 确保BOSS始终能主动攻击玩家
         // 每秒主动检查一次附近玩家
-        if (this.age % 20 == 0) {
+        if (this.retargetTask.poll(world)) {
             // 即使已经有目标，也要检查是否有更近的玩家
             forceAttackNearbyPlayers();
         }
 
         // 增加攻击频率 - 每2秒必然尝试施法一次
-        if (this.getTarget() != null && this.getCastState() == 0 && this.age % 40 == 0) {
+        if (this.spellTask.poll(world, this.getTarget() != null && this.getCastState() == 0)) {
             // 根据与目标的距离选择合适的法术
             double distanceToTarget = this.squaredDistanceTo(this.getTarget());
 
@@ -276,8 +296,17 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
 
     /**
      * 检查BOSS是否被卡住或在窒息方块中
+     * 只有最近一段时间几乎没有位移，或者移动时撞上了方块，才会查询所在位置的方块；
+     * 整个记录窗口内都停在原地时才做碰撞查询
      */
     private boolean checkIfStuck(ServerWorld world) {
+        this.stuckDetector.record(this);
+
+        boolean stalled = this.horizontalCollision || this.stuckDetector.isStationary(STUCK_BLOCK_CHECK_TICKS);
+        if (!this.stuckCheckTask.poll(world, stalled)) {
+            return false;
+        }
+
         // 获取BOSS所在位置的方块状态
         net.minecraft.util.math.BlockPos entityPos = this.getBlockPos();
         net.minecraft.util.math.BlockPos headPos = entityPos.up();
@@ -292,22 +321,23 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
         // 检查是否在实心方块中 (窒息)
         boolean suffocating = blockState.shouldSuffocate(world, entityPos) || 
                              headBlockState.shouldSuffocate(world, headPos);
-        
-        // 检查是否无法移动 (速度几乎为0但仍有目标)
-        boolean cantMove = this.getVelocity().lengthSquared() < 0.01 && 
-                         this.getTarget() != null && 
-                         !this.isOnGround();
-        
-        // 如果有目标而且已经尝试移动但仍被卡住超过2秒
-        if (this.getTarget() != null && this.age % 40 == 0) {
-            // 检查是否处于碰撞中
-            boolean collidingWithBlocks = !world.isSpaceEmpty(this, this.getBoundingBox());
-            if (collidingWithBlocks) {
-                return true;
-            }
+
+        if (inLeaves || suffocating) {
+            return true;
         }
-        
-        return inLeaves || suffocating || (cantMove && this.age % 40 == 0);
+
+        // 有目标但整整2秒停在原地
+        if (this.getTarget() == null || !this.stuckDetector.isStationary(STUCK_HISTORY_TICKS)) {
+            return false;
+        }
+
+        // 检查是否处于碰撞中
+        if (!world.isSpaceEmpty(this, this.getBoundingBox())) {
+            return true;
+        }
+
+        // 检查是否无法移动 (速度几乎为0且悬在空中)
+        return this.stuckDetector.averageSpeedSq(STUCK_HISTORY_TICKS) < 0.01 && !this.isOnGround();
     }
 
     // 覆盖移动相关方法，确保实体总是直立的
@@ -663,22 +693,13 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
 
     /**
      * 在指定位置找到安全的Y坐标
+     * 从BOSS上方15格开始向下查找，结果按列缓存，见{@link SafeYCache}
      */
     public int findSafeY(World world, double x, double z) {
         int maxY = world.getTopY();
 
-        // 从上往下找第一个非空气方块
-        for (int y = Math.min(maxY, (int) this.getY() + 15); y >= world.getBottomY(); y--) {
-            net.minecraft.util.math.BlockPos pos = new net.minecraft.util.math.BlockPos((int) x, y, (int) z);
-            net.minecraft.block.BlockState state = world.getBlockState(pos);
-
-            if (!state.isAir() && state.isFullCube(world, pos) &&
-                    world.isAir(pos.up()) && world.isAir(pos.up(2))) {
-                return y + 1; // 返回方块上方的坐标
-            }
-        }
-
-        return -1; // 未找到合适位置
+        // 从上往下找第一个可以站立的完整方块
+        return SafeYCache.findSafeY(world, (int) x, (int) z, Math.min(maxY, (int) this.getY() + 15));
     }
 
     /**
@@ -686,7 +707,8 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
      */
     private class SorcererServerTick implements IEntityTick<ServerWorld> {
         private final SorcererBossEntity boss;
-        private int attackTick = 0;
+        // 5秒一次的兜底攻击检查
+        private final BossWorkScheduler.Task fallbackAttackTask = new BossWorkScheduler.Task(100, true);
 
         public SorcererServerTick(SorcererBossEntity boss) {
             this.boss = boss;
@@ -694,13 +716,13 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
 
         @Override
         public void tick(ServerWorld world) {
-            // 额外的攻击检查，确保AI行为正常
-            attackTick++;
+            // 维护后台安全传送点
+            boss.teleportCandidates.tick(world, boss, boss);
+            boss.targetTeleportCandidates.tick(world, boss, boss.getTarget());
             
+            // 额外的攻击检查，确保AI行为正常
             // 如果5秒内没有攻击过，强制尝试攻击
-            if (attackTick >= 100) {
-                attackTick = 0;
-                
+            if (fallbackAttackTask.poll(world)) {
                 // 检查是否有目标
                 if (boss.getTarget() == null || !boss.getTarget().isAlive()) {
                     boss.forceAttackNearbyPlayers();
@@ -1284,27 +1306,9 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
                 }
             }
             
-            // 如果没有目标或无法传送到目标附近，尝试传送到随机安全位置
-            for (int i = 0; i < 30; i++) { // 增加尝试次数
-                double distance = 8.0 + boss.getRandom().nextDouble() * 8.0; // 8-16格范围
-                double angle = boss.getRandom().nextDouble() * Math.PI * 2.0;
-                
-                // 计算新坐标
-                double currentX = boss.getX();
-                double currentZ = boss.getZ();
-                
-                double newX = currentX + Math.sin(angle) * distance;
-                double newZ = currentZ + Math.cos(angle) * distance;
-                
-                // 找到合适的Y坐标，并且确保传送位置安全
-                int newY = findSafeLocation(world, newX, newZ);
-                
-                if (newY > 0) {
-                    if (teleportToLocation(newX, newY, newZ)) {
-                        world.sendEntityStatus(boss, TELEPORT_STATE);
-                        return;
-                    }
-                }
+            // 如果没有目标或无法传送到目标附近，使用后台预先找好的安全位置
+            if (teleportToCandidate(world, boss.teleportCandidates, pos -> true)) {
+                return;
             }
             
             // 最后的紧急措施：如果还是找不到安全位置，尝试传送到高空
@@ -1328,37 +1332,10 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
                     world.getTopY(net.minecraft.world.Heightmap.Type.MOTION_BLOCKING, (int)x, (int)z)));
             
             // 从上往下找安全位置
+            net.minecraft.util.math.BlockPos.Mutable pos = new net.minecraft.util.math.BlockPos.Mutable();
             for (int y = startY; y >= world.getBottomY(); y--) {
-                net.minecraft.util.math.BlockPos pos = new net.minecraft.util.math.BlockPos((int)x, y, (int)z);
-                net.minecraft.util.math.BlockPos posAbove = pos.up();
-                net.minecraft.util.math.BlockPos posAbove2 = pos.up(2);
-                
-                net.minecraft.block.BlockState state = world.getBlockState(pos);
-                net.minecraft.block.BlockState stateAbove = world.getBlockState(posAbove);
-                net.minecraft.block.BlockState stateAbove2 = world.getBlockState(posAbove2);
-                
-                // 检查是否是安全的方块类型
-                boolean solidBase = !state.isAir() && 
-                                    state.isFullCube(world, pos) && 
-                                    !(state.getBlock() instanceof net.minecraft.block.LeavesBlock) &&
-                                    !state.shouldSuffocate(world, pos);
-                
-                boolean safeSpace = stateAbove.isAir() && stateAbove2.isAir();
-                
-                if (solidBase && safeSpace) {
-                    // 额外检查上方是否有任何固体方块
-                    boolean clearPath = true;
-                    for (int checkY = 3; checkY <= 5; checkY++) {
-                        net.minecraft.block.BlockState checkState = world.getBlockState(pos.up(checkY));
-                        if (!checkState.isAir() && !(checkState.getBlock() instanceof net.minecraft.block.LeavesBlock)) {
-                            clearPath = false;
-                            break;
-                        }
-                    }
-                    
-                    if (clearPath) {
-                        return y + 1; // 返回方块上方的坐标
-                    }
+                if (TeleportCandidatePool.isSafeLanding(world, pos, (int)x, y, (int)z)) {
+                    return y + 1; // 返回方块上方的坐标
                 }
             }
             
@@ -1433,39 +1410,35 @@ public class SorcererBossEntity extends BaseBossEntity implements GeoAnimatable
                 return;
             }
 
-            // 如果无法传送到目标附近，尝试25次找到一个安全的传送位置
-            for (int i = 0; i < 25; i++) {
-                // 计算传送距离和角度
-                double distance = boss.squaredDistanceTo(target) < 9.0 ?
-                // 如果太近则传送到8-10格远的地方
-                        8.0 + boss.getRandom().nextDouble() * 2.0 :
-                        // 如果太远则传送到6-8格远的地方
-                        6.0 + boss.getRandom().nextDouble() * 2.0;
-
-                // 随机角度
-                double angle = boss.getRandom().nextDouble() * Math.PI * 2.0;
-
-                // 计算新坐标
-                double newX = target.getX() + Math.sin(angle) * distance;
-                double newZ = target.getZ() + Math.cos(angle) * distance;
-
-                // 使用更安全的位置查找方法
-                int newY = findSafeLocation(world, newX, newZ);
-
-                if (newY > 0) {
-                    // 执行传送
-                    if (teleportToLocation(newX, newY, newZ)) {
-                        // 传送成功
-                        world.sendEntityStatus(boss, TELEPORT_STATE);
-                        return;
-                    }
-                }
+            // 如果无法传送到目标附近，从后台预先找好的安全位置中选一个距离目标6-10格的
+            if (teleportToCandidate(world, boss.targetTeleportCandidates, pos -> {
+                double dx = pos.getX() + 0.5 - target.getX();
+                double dz = pos.getZ() + 0.5 - target.getZ();
+                double distSq = dx * dx + dz * dz;
+                return distSq >= 36.0 && distSq <= 100.0;
+            })) {
+                return;
             }
             
             // 如果所有尝试都失败，尝试紧急传送
             emergencyTeleport();
         }
 
+        /**
+         * 传送到候选池中满足条件的位置，候选点在取出时已重新校验
+         */
+        private boolean teleportToCandidate(ServerWorld world, TeleportCandidatePool pool,
+                java.util.function.Predicate<net.minecraft.util.math.BlockPos> filter) {
+            net.minecraft.util.math.BlockPos candidate;
+            while ((candidate = pool.take(world, filter)) != null) {
+                if (teleportToLocation(candidate.getX() + 0.5, candidate.getY(), candidate.getZ() + 0.5)) {
+                    world.sendEntityStatus(boss, TELEPORT_STATE);
+                    return true;
+                }
+            }
+            return false;
+        }
+
         /**
          * 将实体传送到指定坐标，并在传送后进行额外的安全检查
          */
@@ -0,0 +1,122 @@
+package com.justdie.boss.utils;
+
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 按世界错开BOSS的周期性AI工作
+ * 每个周期任务第一次运行时由所在世界的调度器分配一个相位，之后在世界时间与相位对齐的tick到期。
+ * 相位按周期分别依次分配，同一周期的前period个任务一定落在不同的tick，
+ * 同时生成的BOSS不会在同一tick执行索敌、卡住检测和施法。
+ * 计入预算的任务每tick每个世界最多执行{@link #WORK_BUDGET_PER_TICK}个，超出的任务顺延到下一tick，
+ * 顺延满一个周期的任务不再受预算限制，避免长期得不到执行
+ */
+public final class BossWorkScheduler {
+    // 每个世界每tick最多执行的计入预算的任务数
+    private static final int WORK_BUDGET_PER_TICK = 4;
+
+    private static final Map<ServerWorld, BossWorkScheduler> SCHEDULERS = new WeakHashMap<>();
+
+    // 每个周期各自的相位分配计数器，依次分配可以让同时注册的任务均匀分布
+    private final Int2IntOpenHashMap nextPhases = new Int2IntOpenHashMap();
+    // 预算对应的世界时间和已使用的预算
+    private long budgetTick = Long.MIN_VALUE;
+    private int budgetUsed = 0;
+
+    private BossWorkScheduler() {
+    }
+
+    /**
+     * 获取世界的调度器，只能在服务器线程调用
+     *
+     * @param world 世界
+     * @return 调度器
+     */
+    public static BossWorkScheduler get(ServerWorld world) {
+        return SCHEDULERS.computeIfAbsent(world, w -> new BossWorkScheduler());
+    }
+
+    private int assignPhase(int period) {
+        int phase = nextPhases.get(period);
+        nextPhases.put(period, (phase + 1) % period);
+        return phase;
+    }
+
+    private boolean tryConsumeBudget(long now) {
+        if (budgetTick != now) {
+            budgetTick = now;
+            budgetUsed = 0;
+        }
+        if (budgetUsed >= WORK_BUDGET_PER_TICK) {
+            return false;
+        }
+        budgetUsed++;
+        return true;
+    }
+
+    /**
+     * BOSS的一项周期性工作，每个BOSS持有自己的实例
+     */
+    public static final class Task {
+        private final int period;
+        private final boolean budgeted;
+        private BossWorkScheduler scheduler;
+        private int phase;
+        private long nextDue;
+
+        /**
+         * 创建周期任务
+         *
+         * @param period 执行周期（tick）
+         * @param budgeted 是否计入每tick的预算，开销很小的工作只需要错开相位
+         */
+        public Task(int period, boolean budgeted) {
+            this.period = Math.max(1, period);
+            this.budgeted = budgeted;
+        }
+
+        /**
+         * 检查任务本tick是否应该执行，返回true时视为已执行
+         *
+         * @param world 世界
+         * @return 是否执行
+         */
+        public boolean poll(ServerWorld world) {
+            return poll(world, true);
+        }
+
+        /**
+         * 检查任务本tick是否应该执行
+         * 到期但没有工作可做时直接进入下一个周期，不消耗预算
+         *
+         * @param world 世界
+         * @param hasWork 本次是否有工作要做
+         * @return 是否执行
+         */
+        public boolean poll(ServerWorld world, boolean hasWork) {
+            long now = world.getTime();
+            BossWorkScheduler current = BossWorkScheduler.get(world);
+            if (scheduler != current) {
+                // 第一次运行或者换了世界，重新分配相位
+                scheduler = current;
+                phase = current.assignPhase(period);
+                nextDue = now + Math.floorMod(phase - now, period);
+            }
+
+            if (now < nextDue) {
+                return false;
+            }
+
+            if (hasWork && budgeted && now - nextDue < period && !scheduler.tryConsumeBudget(now)) {
+                // 预算用完，保持到期状态顺延到下一tick
+                return false;
+            }
+
+            nextDue = now - Math.floorMod(now - phase, period) + period;
+            return hasWork;
+        }
+    }
+}
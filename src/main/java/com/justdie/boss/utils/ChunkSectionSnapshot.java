@@ -0,0 +1,120 @@
+package com.justdie.boss.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.BlockView;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.PalettedContainer;
+import net.minecraft.world.chunk.WorldChunk;
+
+/**
+ * 区块段方块状态的只读快照
+ * 在主线程复制指定列所在区块中一段高度范围的方块容器，之后可以在后台线程安全地读取。
+ * 范围外和空区块段视为空气，未加载的区块不会被复制，用{@link #contains(int, int)}判断
+ */
+public final class ChunkSectionSnapshot implements BlockView {
+    private final Long2ObjectOpenHashMap<PalettedContainer<BlockState>[]> chunks = new Long2ObjectOpenHashMap<>();
+    private final int minSection;
+    private final int sectionCount;
+    private final int bottomY;
+    private final int height;
+
+    private ChunkSectionSnapshot(ServerWorld world, int minY, int maxY) {
+        this.minSection = ChunkSectionPos.getSectionCoord(minY);
+        this.sectionCount = ChunkSectionPos.getSectionCoord(maxY) - minSection + 1;
+        this.bottomY = world.getBottomY();
+        this.height = world.getHeight();
+    }
+
+    /**
+     * 复制各列所在区块中指定高度范围的方块状态，必须在服务器线程调用
+     * 只读取已加载的区块，不会触发区块加载
+     *
+     * @param world 世界
+     * @param xs 列X坐标
+     * @param zs 列Z坐标
+     * @param minY 最低高度（包含）
+     * @param maxY 最高高度（包含）
+     * @return 快照
+     */
+    public static ChunkSectionSnapshot capture(ServerWorld world, int[] xs, int[] zs, int minY, int maxY) {
+        ChunkSectionSnapshot snapshot = new ChunkSectionSnapshot(world, minY, maxY);
+
+        for (int i = 0; i < xs.length; i++) {
+            int chunkX = ChunkSectionPos.getSectionCoord(xs[i]);
+            int chunkZ = ChunkSectionPos.getSectionCoord(zs[i]);
+            long key = ChunkPos.toLong(chunkX, chunkZ);
+            if (snapshot.chunks.containsKey(key)) {
+                continue;
+            }
+
+            WorldChunk chunk = world.getChunkManager().getWorldChunk(chunkX, chunkZ);
+            if (chunk != null) {
+                snapshot.chunks.put(key, snapshot.copySections(world, chunk));
+            }
+        }
+
+        return snapshot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private PalettedContainer<BlockState>[] copySections(ServerWorld world, WorldChunk chunk) {
+        PalettedContainer<BlockState>[] containers = new PalettedContainer[sectionCount];
+        ChunkSection[] sections = chunk.getSectionArray();
+
+        for (int i = 0; i < sectionCount; i++) {
+            int index = world.sectionCoordToIndex(minSection + i);
+            if (index >= 0 && index < sections.length && !sections[index].isEmpty()) {
+                containers[i] = sections[index].getBlockStateContainer().copy();
+            }
+        }
+
+        return containers;
+    }
+
+    /**
+     * 快照中是否包含该列所在的区块
+     */
+    public boolean contains(int x, int z) {
+        return chunks.containsKey(ChunkPos.toLong(ChunkSectionPos.getSectionCoord(x), ChunkSectionPos.getSectionCoord(z)));
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        PalettedContainer<BlockState>[] containers = chunks.get(
+                ChunkPos.toLong(ChunkSectionPos.getSectionCoord(pos.getX()), ChunkSectionPos.getSectionCoord(pos.getZ())));
+        int section = ChunkSectionPos.getSectionCoord(pos.getY()) - minSection;
+        if (containers == null || section < 0 || section >= sectionCount || containers[section] == null) {
+            return Blocks.AIR.getDefaultState();
+        }
+
+        return containers[section].get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getBottomY() {
+        return bottomY;
+    }
+}
@@ -1,38 +1,155 @@
 package com.justdie.boss.utils;
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * 事件调度系统，用于处理延迟和计划任务
+ * 使用按tick散列的时间轮：每个事件只挂在下一次到期tick对应的槽位上，
+ * 每tick只访问当前槽位，因此开销与到期事件数成正比，与调度中的事件总数无关。
+ * 槽位链表直接使用事件对象上的指针，调度和更新过程不分配内存
  */
 public class EventScheduler {
-    private final List<TimedEvent> events = new ArrayList<>();
-    private final List<TimedEvent> eventsToAdd = new ArrayList<>();
-    
+    // 时间轮槽位数，必须是2的幂；超过一圈的事件会留在槽位中直到对应的圈数
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final TimedEvent[] wheel = new TimedEvent[WHEEL_SIZE];
+    // 本tick到期事件的缓冲区，只在到期事件数超过容量时扩容
+    private TimedEvent[] dueBuffer = new TimedEvent[16];
+    // 已执行的更新次数
+    private long currentTick = 0;
+    // 事件加入顺序的计数器
+    private long nextSequence = 0;
+    private int size = 0;
+
     /**
      * 添加一个计时事件
-     * 
+     * 事件在下一次更新时经历第1个tick，与加入时是否处于更新过程中无关
+     *
      * @param event 要添加的事件
+     * @return 事件本身，可用于取消
      */
-    public void addEvent(TimedEvent event) {
-        eventsToAdd.add(event);
+    public TimedEvent addEvent(TimedEvent event) {
+        if (event.owner != null || event.isCancelled()) {
+            return event;
+        }
+
+        event.baseTick = currentTick;
+        event.sequence = nextSequence++;
+        long elapsed = event.nextElapsed(0);
+        if (elapsed > 0) {
+            schedule(event, currentTick + elapsed);
+        }
+        return event;
     }
-    
+
     /**
      * 更新所有事件，应该在每tick调用
      */
     public void updateEvents() {
-        events.addAll(eventsToAdd);
-        eventsToAdd.clear();
-        
-        Iterator<TimedEvent> iterator = events.iterator();
-        while (iterator.hasNext()) {
-            TimedEvent event = iterator.next();
-            if (event.update()) {
-                iterator.remove();
+        long tick = ++currentTick;
+        if (size == 0) {
+            return;
+        }
+
+        // 先把到期事件全部摘到缓冲区再执行，动作中增删其他事件不会打断槽位遍历
+        int dueCount = 0;
+        TimedEvent event = wheel[(int) (tick & WHEEL_MASK)];
+        while (event != null) {
+            TimedEvent next = event.next;
+            if (event.dueTick == tick) {
+                unschedule(event);
+                if (dueCount == dueBuffer.length) {
+                    dueBuffer = Arrays.copyOf(dueBuffer, dueCount * 2);
+                }
+                // 按加入顺序插入，同一tick到期的事件与加入顺序一致地执行
+                int j = dueCount++;
+                while (j > 0 && dueBuffer[j - 1].sequence > event.sequence) {
+                    dueBuffer[j] = dueBuffer[j - 1];
+                    j--;
+                }
+                dueBuffer[j] = event;
+            }
+            event = next;
+        }
+
+        for (int i = 0; i < dueCount; i++) {
+            TimedEvent due = dueBuffer[i];
+            dueBuffer[i] = null;
+            // 前面的动作可能已经取消或重新加入了这个事件
+            if (due.owner == null) {
+                fire(due, tick);
             }
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * 当前调度中的事件数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 执行到期事件，并按重复间隔重新调度
+     */
+    private void fire(TimedEvent event, long tick) {
+        if (event.checkCancelled()) {
+            return;
+        }
+
+        event.run();
+
+        // 动作中可能取消了自己
+        if (event.isCancelled()) {
+            return;
+        }
+
+        long nextElapsed = event.nextElapsed(tick - event.baseTick);
+        if (nextElapsed > 0) {
+            schedule(event, event.baseTick + nextElapsed);
+        }
+    }
+
+    /**
+     * 把事件插入到期tick对应槽位的链表头部
+     * 更新过程中重新插入的事件到期tick一定晚于当前tick，不会在本次遍历中再次执行
+     */
+    private void schedule(TimedEvent event, long dueTick) {
+        int slot = (int) (dueTick & WHEEL_MASK);
+        TimedEvent head = wheel[slot];
+
+        event.owner = this;
+        event.dueTick = dueTick;
+        event.prev = null;
+        event.next = head;
+        if (head != null) {
+            head.prev = event;
+        }
+        wheel[slot] = event;
+        size++;
+    }
+
+    /**
+     * 把事件从所在槽位的链表中摘除
+     */
+    void unschedule(TimedEvent event) {
+        if (event.owner != this) {
+            return;
+        }
+
+        if (event.prev != null) {
+            event.prev.next = event.next;
+        } else {
+            wheel[(int) (event.dueTick & WHEEL_MASK)] = event.next;
+        }
+        if (event.next != null) {
+            event.next.prev = event.prev;
+        }
+
+        event.owner = null;
+        event.prev = null;
+        event.next = null;
+        size--;
+    }
+}
@@ -0,0 +1,128 @@
+package com.justdie.boss.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.Heightmap;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * 按世界缓存每一列的安全落脚高度
+ * 安全位置指一个非空气的完整方块，且上方两格都是空气，返回值为该方块上方一格的Y坐标
+ *
+ * 每列记录一次扫描的起点和结果，表示起点到结果之间没有其他安全位置，
+ * 起点不高于记录起点且不低于结果的查询可以直接返回；扫描起点不会高于高度图顶端。
+ * 服务端列内有方块变化时由{@link com.justdie.mixin.ServerWorldMixin}清除该列，客户端不缓存
+ */
+public final class SafeYCache {
+    // 单个世界最多缓存的列数，超出时整体清空
+    private static final int MAX_COLUMNS = 4096;
+    private static final long NO_ENTRY = Long.MIN_VALUE;
+
+    private static final Map<World, Long2LongOpenHashMap> CACHES = new WeakHashMap<>();
+    private static final BlockPos.Mutable SCAN_POS = new BlockPos.Mutable();
+
+    private SafeYCache() {
+    }
+
+    /**
+     * 从指定高度向下查找列中的安全Y坐标
+     *
+     * @param world 世界
+     * @param x 列X坐标
+     * @param z 列Z坐标
+     * @param startY 开始查找的高度
+     * @return 安全位置方块上方的Y坐标，未找到时返回-1
+     */
+    public static int findSafeY(World world, int x, int z, int startY) {
+        // 高度图以上没有可以站立的方块
+        int fromY = Math.min(startY, world.getTopY(Heightmap.Type.MOTION_BLOCKING, x, z) - 1);
+
+        if (world.isClient()) {
+            return scan(world, x, z, fromY, world.getBottomY());
+        }
+
+        Long2LongOpenHashMap cache = CACHES.computeIfAbsent(world, w -> createCache());
+        long key = ChunkPos.toLong(x, z);
+        long entry = cache.get(key);
+
+        if (entry != NO_ENTRY) {
+            int scannedFrom = (int) (entry >> 32);
+            int result = (int) entry;
+
+            if (fromY <= scannedFrom && (result == -1 || fromY >= result - 1)) {
+                return result;
+            }
+            if (fromY > scannedFrom) {
+                // 只需要扫描记录起点以上的部分
+                int above = scan(world, x, z, fromY, scannedFrom + 1);
+                int combined = above != -1 ? above : result;
+                store(cache, key, fromY, combined);
+                return combined;
+            }
+        }
+
+        int result = scan(world, x, z, fromY, world.getBottomY());
+        store(cache, key, fromY, result);
+        return result;
+    }
+
+    /**
+     * 列中有方块变化时清除该列的缓存
+     *
+     * @param world 世界
+     * @param pos 变化的方块位置
+     */
+    public static void invalidate(World world, BlockPos pos) {
+        Long2LongOpenHashMap cache = CACHES.get(world);
+        if (cache != null && !cache.isEmpty()) {
+            cache.remove(ChunkPos.toLong(pos.getX(), pos.getZ()));
+        }
+    }
+
+    private static Long2LongOpenHashMap createCache() {
+        Long2LongOpenHashMap cache = new Long2LongOpenHashMap();
+        cache.defaultReturnValue(NO_ENTRY);
+        return cache;
+    }
+
+    private static void store(Long2LongMap cache, long key, int scannedFrom, int result) {
+        if (cache.size() >= MAX_COLUMNS) {
+            cache.clear();
+        }
+        cache.put(key, ((long) scannedFrom << 32) | (result & 0xFFFFFFFFL));
+    }
+
+    /**
+     * 从上往下扫描第一个安全位置
+     * 每层只读取一次方块状态，上方两格是否为空气沿用前两层的结果
+     *
+     * @param fromY 起始高度（包含）
+     * @param toY 结束高度（包含）
+     * @return 安全位置方块上方的Y坐标，未找到时返回-1
+     */
+    private static int scan(World world, int x, int z, int fromY, int toY) {
+        BlockPos.Mutable pos = world.isClient() ? new BlockPos.Mutable() : SCAN_POS;
+        boolean airAbove2 = world.getBlockState(pos.set(x, fromY + 2, z)).isAir();
+        boolean airAbove1 = world.getBlockState(pos.set(x, fromY + 1, z)).isAir();
+
+        for (int y = fromY; y >= toY; y--) {
+            BlockState state = world.getBlockState(pos.set(x, y, z));
+            boolean air = state.isAir();
+
+            if (!air && airAbove1 && airAbove2 && state.isFullCube(world, pos)) {
+                return y + 1;
+            }
+
+            airAbove2 = airAbove1;
+            airAbove1 = air;
+        }
+
+        return -1;
+    }
+}
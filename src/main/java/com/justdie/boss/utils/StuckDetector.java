@@ -0,0 +1,139 @@
+package com.justdie.boss.utils;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.util.math.Vec3d;
+
+/**
+ * 基于移动历史的卡住检测
+ * 用环形缓冲区记录实体最近若干tick的位置和速度，只有在一段时间内位移始终低于阈值时才认为实体停滞，
+ * 调用方据此决定是否需要进一步查询方块或碰撞。正常移动的实体只需比较最新和最旧两个采样
+ */
+public final class StuckDetector {
+    private final int capacity;
+    private final double thresholdSq;
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] zs;
+    private final double[] speedsSq;
+    // 下一次写入的位置
+    private int head = 0;
+    // 已记录的采样数，不超过容量
+    private int count = 0;
+
+    /**
+     * 创建卡住检测器
+     *
+     * @param capacity 记录的采样数（tick）
+     * @param threshold 位移阈值（格），窗口内的移动范围小于该值视为停滞
+     */
+    public StuckDetector(int capacity, double threshold) {
+        this.capacity = capacity;
+        this.thresholdSq = threshold * threshold;
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.zs = new double[capacity];
+        this.speedsSq = new double[capacity];
+    }
+
+    /**
+     * 记录实体当前的位置和速度，应该在每tick调用
+     *
+     * @param entity 实体
+     */
+    public void record(Entity entity) {
+        Vec3d velocity = entity.getVelocity();
+        xs[head] = entity.getX();
+        ys[head] = entity.getY();
+        zs[head] = entity.getZ();
+        speedsSq[head] = velocity.lengthSquared();
+
+        head = (head + 1) % capacity;
+        if (count < capacity) {
+            count++;
+        }
+    }
+
+    /**
+     * 最近若干个采样内实体是否一直停留在原地
+     * 先比较首尾两个采样，只有首尾位移低于阈值时才检查整个窗口的移动范围
+     *
+     * @param samples 窗口大小，不超过容量
+     * @return 采样不足时返回false
+     */
+    public boolean isStationary(int samples) {
+        if (samples < 2 || samples > count) {
+            return false;
+        }
+
+        int newest = indexOf(0);
+        int oldest = indexOf(samples - 1);
+        if (distanceSq(newest, oldest) >= thresholdSq) {
+            return false;
+        }
+
+        double minX = xs[newest], maxX = minX;
+        double minY = ys[newest], maxY = minY;
+        double minZ = zs[newest], maxZ = minZ;
+        for (int i = 1; i < samples; i++) {
+            int index = indexOf(i);
+            minX = Math.min(minX, xs[index]);
+            maxX = Math.max(maxX, xs[index]);
+            minY = Math.min(minY, ys[index]);
+            maxY = Math.max(maxY, ys[index]);
+            minZ = Math.min(minZ, zs[index]);
+            maxZ = Math.max(maxZ, zs[index]);
+        }
+
+        double dx = maxX - minX;
+        double dy = maxY - minY;
+        double dz = maxZ - minZ;
+        return dx * dx + dy * dy + dz * dz < thresholdSq;
+    }
+
+    /**
+     * 最近若干个采样的平均速度平方
+     *
+     * @param samples 窗口大小，超过已记录的采样数时只计算已有采样
+     * @return 没有采样时返回0
+     */
+    public double averageSpeedSq(int samples) {
+        int n = Math.min(samples, count);
+        if (n <= 0) {
+            return 0.0;
+        }
+
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            sum += speedsSq[indexOf(i)];
+        }
+        return sum / n;
+    }
+
+    /**
+     * 清空历史，例如实体传送之后
+     */
+    public void reset() {
+        count = 0;
+    }
+
+    /**
+     * 记录的最大采样数
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 第age个最近采样在缓冲区中的位置，0为最新
+     */
+    private int indexOf(int age) {
+        return (head - 1 - age + capacity * 2) % capacity;
+    }
+
+    private double distanceSq(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        double dz = zs[a] - zs[b];
+        return dx * dx + dy * dy + dz * dz;
+    }
+}
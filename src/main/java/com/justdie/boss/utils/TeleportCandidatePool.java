@@ -0,0 +1,227 @@
+package com.justdie.boss.utils;
+
+import com.justdie.JustDying;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.LeavesBlock;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.BlockView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * 某个中心实体周围的安全传送点池
+ * 定期在主线程随机选取中心周围的若干列并复制所在区块段，在后台线程从快照中查找安全落脚点，
+ * 主线程每tick只检查后台任务是否完成。需要传送时从池中取出候选点，只在当前世界中重新校验该点。
+ * 中心可以是BOSS自身，也可以是它的目标；中心换成另一个实体时原有候选点全部作废
+ */
+public final class TeleportCandidatePool {
+    // 池中最多保留的候选点
+    private static final int CAPACITY = 8;
+    // 每次后台搜索的列数
+    private static final int COLUMNS_PER_SEARCH = 12;
+    // 两次后台搜索的最小间隔（tick）
+    private static final int SEARCH_INTERVAL = 20;
+    // 搜索高度范围：从中心上方10格向下，最多到中心下方24格
+    private static final int SCAN_ABOVE = 10;
+    private static final int SCAN_BELOW = 24;
+    // 候选点上方需要检查的高度
+    private static final int CLEARANCE = 5;
+    // 中心移动后超出搜索半径该距离的候选点会被丢弃
+    private static final double DRIFT_MARGIN = 4.0;
+
+    // 候选列与中心的水平距离范围
+    private final double minRadius;
+    private final double maxRadius;
+    private final double maxDistanceSq;
+
+    private final ArrayDeque<BlockPos> candidates = new ArrayDeque<>(CAPACITY);
+    private Entity center;
+    private CompletableFuture<List<BlockPos>> pending;
+    private int searchCooldown = 0;
+
+    /**
+     * 创建传送点池
+     *
+     * @param minRadius 候选列与中心的最小水平距离
+     * @param maxRadius 候选列与中心的最大水平距离
+     */
+    public TeleportCandidatePool(double minRadius, double maxRadius) {
+        this.minRadius = minRadius;
+        this.maxRadius = maxRadius;
+        this.maxDistanceSq = (maxRadius + DRIFT_MARGIN) * (maxRadius + DRIFT_MARGIN);
+    }
+
+    /**
+     * 每tick在服务器线程调用，收取后台结果并在需要时发起新的搜索
+     *
+     * @param world 世界
+     * @param boss BOSS实体，用于随机数
+     * @param center 搜索中心，为null时清空池并停止搜索
+     */
+    public void tick(ServerWorld world, Entity boss, Entity center) {
+        if (center != this.center) {
+            // 换了中心，之前的候选点和进行中的搜索都不再适用
+            this.center = center;
+            candidates.clear();
+            pending = null;
+            searchCooldown = 0;
+        }
+        if (center == null) {
+            return;
+        }
+
+        if (pending != null) {
+            if (!pending.isDone()) {
+                return;
+            }
+            collect(center);
+        }
+
+        candidates.removeIf(pos -> squaredHorizontalDistance(center, pos) > maxDistanceSq);
+
+        if (--searchCooldown > 0 || candidates.size() >= CAPACITY) {
+            return;
+        }
+        searchCooldown = SEARCH_INTERVAL;
+        startSearch(world, boss.getRandom(), center);
+    }
+
+    /**
+     * 取出一个满足条件且在当前世界中仍然安全的候选点
+     * 检查过但已不安全的候选点会被丢弃
+     *
+     * @param world 世界
+     * @param filter 候选点筛选条件，例如与目标的距离
+     * @return 落脚点（方块上方一格的坐标），没有可用候选点时返回null
+     */
+    public BlockPos take(ServerWorld world, Predicate<BlockPos> filter) {
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+        Iterator<BlockPos> iterator = candidates.iterator();
+
+        while (iterator.hasNext()) {
+            BlockPos candidate = iterator.next();
+            if (!filter.test(candidate)) {
+                continue;
+            }
+
+            iterator.remove();
+            if (isSafeLanding(world, pos, candidate.getX(), candidate.getY() - 1, candidate.getZ())) {
+                return candidate;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * 检查指定方块是否可以作为落脚点
+     * 方块本身是非树叶的完整方块且不会令实体窒息，上方两格为空气，再往上三格没有树叶以外的方块
+     *
+     * @param view 方块视图，可以是世界或快照
+     * @param pos 可复用的坐标
+     * @param x 方块X坐标
+     * @param y 方块Y坐标
+     * @param z 方块Z坐标
+     * @return 是否安全
+     */
+    public static boolean isSafeLanding(BlockView view, BlockPos.Mutable pos, int x, int y, int z) {
+        BlockState state = view.getBlockState(pos.set(x, y, z));
+        if (state.isAir() || !state.isFullCube(view, pos) || state.getBlock() instanceof LeavesBlock
+                || state.shouldSuffocate(view, pos)) {
+            return false;
+        }
+
+        if (!view.getBlockState(pos.set(x, y + 1, z)).isAir() || !view.getBlockState(pos.set(x, y + 2, z)).isAir()) {
+            return false;
+        }
+
+        for (int dy = 3; dy <= CLEARANCE; dy++) {
+            BlockState above = view.getBlockState(pos.set(x, y + dy, z));
+            if (!above.isAir() && !(above.getBlock() instanceof LeavesBlock)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void collect(Entity center) {
+        List<BlockPos> found = pending.isCompletedExceptionally() ? List.of() : pending.getNow(List.of());
+        pending = null;
+
+        for (BlockPos pos : found) {
+            if (candidates.size() >= CAPACITY) {
+                break;
+            }
+            if (!candidates.contains(pos) && squaredHorizontalDistance(center, pos) <= maxDistanceSq) {
+                candidates.addLast(pos);
+            }
+        }
+    }
+
+    /**
+     * 在主线程选取列并复制区块段，然后把查找交给后台线程
+     */
+    private void startSearch(ServerWorld world, Random random, Entity center) {
+        int[] xs = new int[COLUMNS_PER_SEARCH];
+        int[] zs = new int[COLUMNS_PER_SEARCH];
+        for (int i = 0; i < COLUMNS_PER_SEARCH; i++) {
+            double distance = minRadius + random.nextDouble() * (maxRadius - minRadius);
+            double angle = random.nextDouble() * Math.PI * 2.0;
+            xs[i] = MathHelper.floor(center.getX() + Math.sin(angle) * distance);
+            zs[i] = MathHelper.floor(center.getZ() + Math.cos(angle) * distance);
+        }
+
+        int topY = Math.min(world.getTopY() - 1, center.getBlockY() + SCAN_ABOVE);
+        int bottomY = Math.max(world.getBottomY(), center.getBlockY() - SCAN_BELOW);
+        if (topY < bottomY) {
+            return;
+        }
+
+        ChunkSectionSnapshot snapshot = ChunkSectionSnapshot.capture(world, xs, zs, bottomY, topY + CLEARANCE);
+        pending = CompletableFuture.supplyAsync(() -> search(snapshot, xs, zs, topY, bottomY), Util.getMainWorkerExecutor());
+        pending.exceptionally(e -> {
+            JustDying.LOGGER.debug("BOSS传送点后台搜索失败: {}", e.getMessage());
+            return List.of();
+        });
+    }
+
+    /**
+     * 在后台线程从快照中逐列从上往下查找第一个安全落脚点
+     */
+    private static List<BlockPos> search(ChunkSectionSnapshot snapshot, int[] xs, int[] zs, int topY, int bottomY) {
+        List<BlockPos> found = new ArrayList<>();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int i = 0; i < xs.length; i++) {
+            if (!snapshot.contains(xs[i], zs[i])) {
+                continue;
+            }
+
+            for (int y = topY; y >= bottomY; y--) {
+                if (isSafeLanding(snapshot, pos, xs[i], y, zs[i])) {
+                    found.add(new BlockPos(xs[i], y + 1, zs[i]));
+                    break;
+                }
+            }
+        }
+
+        return found;
+    }
+
+    private static double squaredHorizontalDistance(Entity entity, BlockPos pos) {
+        double dx = entity.getX() - (pos.getX() + 0.5);
+        double dz = entity.getZ() - (pos.getZ() + 0.5);
+        return dx * dx + dz * dz;
+    }
+}
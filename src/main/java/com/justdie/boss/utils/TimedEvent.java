@@ -1,57 +1,66 @@
 package com.justdie.boss.utils;
 
-import java.util.function.Supplier;
+import java.util.function.BooleanSupplier;
 
 /**
  * 表示一个计时事件，可用于延迟执行动作或者定期执行动作
+ * 事件本身也是取消句柄，调用{@link #cancel()}后会立即从调度器中移除
  */
 public class TimedEvent {
     private final Runnable action;
     private final int startTime;
     private final int duration;
-    private final Supplier<Boolean> shouldCancel;
-    private int ticksElapsed = 0;
+    private final BooleanSupplier shouldCancel;
     private int repeatInterval = -1;
-    
+    private boolean cancelled = false;
+
+    // 以下字段由EventScheduler维护：所在时间轮槽位的双向链表指针、到期tick、加入时的tick和加入顺序
+    EventScheduler owner;
+    TimedEvent prev;
+    TimedEvent next;
+    long dueTick;
+    long baseTick;
+    long sequence;
+
     /**
      * 创建一个计时事件
-     * 
+     *
      * @param action 要执行的动作
      * @param startTime 开始执行的时间点（tick）
      * @param duration 持续时间（tick）
-     * @param shouldCancel 取消条件
+     * @param shouldCancel 取消条件，只在事件到期时检查
      */
-    public TimedEvent(Runnable action, int startTime, int duration, Supplier<Boolean> shouldCancel) {
+    public TimedEvent(Runnable action, int startTime, int duration, BooleanSupplier shouldCancel) {
         this.action = action;
         this.startTime = startTime;
         this.duration = duration;
         this.shouldCancel = shouldCancel;
     }
-    
+
     /**
      * 创建一个计时事件，不带取消条件
-     * 
+     *
      * @param action 要执行的动作
      * @param startTime 开始执行的时间点（tick）
      * @param duration 持续时间（tick）
      */
     public TimedEvent(Runnable action, int startTime, int duration) {
-        this(action, startTime, duration, () -> false);
+        this(action, startTime, duration, null);
     }
-    
+
     /**
      * 创建一个即时执行的计时事件
-     * 
+     *
      * @param action 要执行的动作
      * @param startTime 开始执行的时间点（tick）
      */
     public TimedEvent(Runnable action, int startTime) {
         this(action, startTime, 1);
     }
-    
+
     /**
      * 设置重复间隔
-     * 
+     *
      * @param interval 重复间隔（tick）
      * @return 当前事件实例
      */
@@ -59,29 +68,68 @@ public class TimedEvent {
         this.repeatInterval = interval;
         return this;
     }
-    
+
     /**
-     * 更新事件状态
-     * 
-     * @return 如果事件已完成或取消，则返回true
+     * 取消事件，之后不会再执行
      */
-    public boolean update() {
-        ticksElapsed++;
-        
-        if (shouldCancel.get()) {
-            return true;
+    public void cancel() {
+        cancelled = true;
+        if (owner != null) {
+            owner.unschedule(this);
         }
-        
-        if (ticksElapsed == startTime) {
-            action.run();
-            if (repeatInterval <= 0) {
-                return ticksElapsed >= startTime + duration;
-            }
-        } else if (repeatInterval > 0 && ticksElapsed > startTime && 
-                  (ticksElapsed - startTime) % repeatInterval == 0) {
-            action.run();
+    }
+
+    /**
+     * 事件是否已被取消
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 事件是否仍在调度器中等待执行
+     */
+    public boolean isScheduled() {
+        return owner != null;
+    }
+
+    /**
+     * 到期时检查取消条件
+     */
+    boolean checkCancelled() {
+        if (!cancelled && shouldCancel != null && shouldCancel.getAsBoolean()) {
+            cancelled = true;
+        }
+        return cancelled;
+    }
+
+    /**
+     * 执行动作
+     */
+    void run() {
+        action.run();
+    }
+
+    /**
+     * 计算下一次执行时事件已经历的tick数
+     * 第一次在startTime执行，之后每隔repeatInterval执行一次，不超过startTime + duration
+     *
+     * @param after 上一次执行时已经历的tick数，尚未执行时为0
+     * @return 下一次执行时已经历的tick数，没有下一次时返回-1
+     */
+    long nextElapsed(long after) {
+        long end = (long) startTime + duration;
+        long elapsed;
+
+        if (startTime > after && startTime >= 1) {
+            elapsed = startTime;
+        } else if (repeatInterval > 0) {
+            long from = Math.max(after, Math.max(startTime, 0));
+            elapsed = startTime + ((from - startTime) / repeatInterval + 1) * repeatInterval;
+        } else {
+            return -1;
         }
-        
-        return ticksElapsed >= startTime + duration;
+
+        return elapsed <= end ? elapsed : -1;
     }
-} 
\ No newline at end of file
+}
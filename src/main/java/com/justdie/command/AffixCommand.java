@@ -3,6 +3,7 @@ package com.justdie.command;
 import com.justdie.affix.Affix;
 import com.justdie.affix.AffixManager;
 import com.justdie.affix.AffixRegistry;
+import com.justdie.affix.AffixStats;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.context.CommandContext;
@@ -27,6 +28,11 @@ import java.util.List;
 public class AffixCommand {
     private static final int MAX_AFFIXES_PER_COMMAND = 5;
     
+    // 上一次查看统计时的时间和计数，用于计算每秒速率
+    private static long lastStatsNanos = System.nanoTime();
+    private static long lastPassiveEffectApplications = 0;
+    private static long lastAttributeModifierUpdates = 0;
+    
     /**
      * 注册词缀命令
      * 
@@ -96,6 +102,11 @@ public class AffixCommand {
             .then(CommandManager.literal("test")
                 .executes(AffixCommand::addAllAffixes)
             )
+            
+            // 查看词缀系统的运行统计
+            .then(CommandManager.literal("stats")
+                .executes(AffixCommand::showStats)
+            )
         );
     }
     
@@ -322,4 +333,32 @@ public class AffixCommand {
         
         return successCount;
     }
-} 
\ No newline at end of file
+    
+    /**
+     * 显示词缀系统的运行统计
+     * 速率按距上一次执行该命令的时间计算，并按在线玩家数平均
+     * 
+     * @param context 命令上下文
+     * @return 命令结果
+     */
+    private static int showStats(CommandContext<ServerCommandSource> context) {
+        long now = System.nanoTime();
+        double seconds = Math.max((now - lastStatsNanos) / 1.0E9, 0.001);
+        int players = Math.max(context.getSource().getServer().getCurrentPlayerCount(), 1);
+        
+        long passive = AffixStats.getPassiveEffectApplications();
+        double passiveRate = (passive - lastPassiveEffectApplications) / seconds / players;
+        long modifiers = AffixStats.getAttributeModifierUpdates();
+        double modifierRate = (modifiers - lastAttributeModifierUpdates) / seconds / players;
+        
+        lastStatsNanos = now;
+        lastPassiveEffectApplications = passive;
+        lastAttributeModifierUpdates = modifiers;
+        
+        context.getSource().sendFeedback(() -> Text.translatable("command.justdying.affix.stats.passive", 
+            passive, String.format("%.2f", passiveRate)).formatted(Formatting.YELLOW), false);
+        context.getSource().sendFeedback(() -> Text.translatable("command.justdying.affix.stats.modifiers", 
+            modifiers, String.format("%.2f", modifierRate)).formatted(Formatting.YELLOW), false);
+        return 1;
+    }
+}
@@ -1,6 +1,8 @@
 package com.justdie.config;
 
 import com.justdie.affix.AffixEffectTrigger;
+import com.justdie.affix.AffixRarity;
+import com.justdie.attribute.AttributeBonusCurve;
 import me.shedaniel.autoconfig.ConfigData;
 import me.shedaniel.autoconfig.annotation.Config;
 import me.shedaniel.autoconfig.annotation.ConfigEntry;
@@ -119,6 +121,13 @@ public class JustDyingConfig implements ConfigData {
                 @ConfigEntry.Gui.Tooltip
                 public float valueMultiplier = 1.0f;
 
+                @ConfigEntry.Gui.Tooltip
+                @ConfigEntry.Gui.EnumHandler(option = ConfigEntry.Gui.EnumHandler.EnumDisplayOption.BUTTON)
+                public AttributeBonusCurve bonusCurve = AttributeBonusCurve.LINEAR; // 属性点数换算为加成值的曲线
+
+                @ConfigEntry.Gui.Tooltip
+                public float curveParameter = 10.0f; // 递减曲线的半饱和点或阶梯曲线的步长
+
                 @ConfigEntry.Gui.Tooltip
                 public boolean enabled = true;
 
@@ -341,6 +350,9 @@ public class JustDyingConfig implements ConfigData {
                 @ConfigEntry.Gui.EnumHandler(option = ConfigEntry.Gui.EnumHandler.EnumDisplayOption.BUTTON)
                 public AffixItemType itemType;
 
+                @ConfigEntry.Gui.EnumHandler(option = ConfigEntry.Gui.EnumHandler.EnumDisplayOption.BUTTON)
+                public AffixRarity rarity = AffixRarity.COMMON;
+
                 @ConfigEntry.Gui.Excluded
                 public AffixAttributeEntry attribute;
 
@@ -19,6 +19,7 @@ import com.justdie.attribute.AttributeHelper;
 import com.justdie.attribute.PlayerAttributeData;
 import com.justdie.attribute.AttributeComponents;
 
+import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
@@ -31,18 +32,15 @@ public class AttributeCapItemHandler {
     private static final String SUCCESS_TRANSLATION_KEY = "message.justdying.attribute_cap_increased";
     private static final String FAILURE_TRANSLATION_KEY = "message.justdying.attribute_cap_increase_failed";
     
-    // 物品ID到属性ID的映射
+    // 物品ID到属性ID的映射，使用时通过{@link ItemMetadataIndex}按物品查找
     private static final Map<String, String> ITEM_TO_ATTRIBUTE_MAP = new ConcurrentHashMap<>(16);
     
-    // 缓存属性标识符，减少对象创建
-    private static final Map<String, Identifier> ATTRIBUTE_ID_CACHE = new ConcurrentHashMap<>();
-    
     /**
      * 初始化属性Cap物品映射
      */
     public static void initialize() {
         ITEM_TO_ATTRIBUTE_MAP.clear();
-        ATTRIBUTE_ID_CACHE.clear();
+        ItemMetadataIndex.invalidate();
         
         JustDyingConfig config = JustDying.getConfig();
         
@@ -81,9 +79,6 @@ public class AttributeCapItemHandler {
                 if (item != Items.AIR || capItemIdStr.equals("minecraft:air")) {
                     // 添加到映射
                     ITEM_TO_ATTRIBUTE_MAP.put(capItemIdStr, attributeKey);
-                    
-                    // 预缓存属性ID，减少后续查找次数
-                    ATTRIBUTE_ID_CACHE.put(attributeKey, new Identifier(JustDying.MOD_ID, attributeKey));
                     registeredCount++;
                     
                     if (config.debug) {
@@ -102,11 +97,12 @@ public class AttributeCapItemHandler {
     }
     
     /**
-     * 获取缓存的属性标识符
+     * 获取物品ID到属性ID的映射
+     * 
+     * @return 不可修改的映射
      */
-    private static Identifier getAttributeId(String attributePath) {
-        return ATTRIBUTE_ID_CACHE.computeIfAbsent(attributePath, 
-            path -> new Identifier(JustDying.MOD_ID, path));
+    public static Map<String, String> getCapItemMappings() {
+        return Collections.unmodifiableMap(ITEM_TO_ATTRIBUTE_MAP);
     }
     
     /**
@@ -140,15 +136,10 @@ public class AttributeCapItemHandler {
                 return TypedActionResult.pass(stack);
             }
             
-            // 获取物品ID
-            Item item = stack.getItem();
-            String itemIdStr = Registries.ITEM.getId(item).toString();
-            
-            // 高效查找: 检查是否属于属性上限增加物品
-            String attributePath = ITEM_TO_ATTRIBUTE_MAP.get(itemIdStr);
-            if (attributePath != null) {
-                // 使用缓存获取属性ID，提高性能
-                return handleAttributeCapItem(player, stack, getAttributeId(attributePath));
+            // 通过物品元数据索引查找对应的属性
+            Identifier attributeId = ItemMetadataIndex.get(stack.getItem()).capAttributeId();
+            if (attributeId != null) {
+                return handleAttributeCapItem(player, stack, attributeId);
             }
             
             // 不是属性上限增加物品，继续正常使用逻辑
@@ -200,7 +191,7 @@ public class AttributeCapItemHandler {
                 // 对于已经达到上限的情况，确保属性效果更新
                 PlayerAttributeData attributeData = AttributeComponents.PLAYER_ATTRIBUTES.get(player).getAttributeData();
                 if (attributeData != null) {
-                    attributeData.updateVanillaAttribute(attribute, currentValue);
+                    attributeData.markVanillaAttributeDirty(attribute);
                 }
             }
             
@@ -0,0 +1,164 @@
+package com.justdie.item;
+
+import com.justdie.JustDying;
+import com.justdie.affix.Affix;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.item.ArmorItem;
+import net.minecraft.item.AxeItem;
+import net.minecraft.item.HoeItem;
+import net.minecraft.item.Item;
+import net.minecraft.item.Items;
+import net.minecraft.item.PickaxeItem;
+import net.minecraft.item.ShovelItem;
+import net.minecraft.item.SwordItem;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 物品元数据索引
+ * 在注册表冻结后为每个物品预先计算词缀分类、装备槽位和属性上限物品对应的属性，
+ * 热路径上只需一次按对象身份的查找，不再需要instanceof判断链或拼接物品ID字符串
+ */
+public final class ItemMetadataIndex {
+    // 索引为只读的IdentityHashMap，整体替换发布
+    private static volatile Map<Item, ItemMetadata> index;
+
+    private ItemMetadataIndex() {
+    }
+
+    /**
+     * 物品元数据
+     *
+     * @param affixCategory 词缀物品类型，不能添加词缀时为null
+     * @param slot 应用属性修饰符的装备槽位，不适用时为null
+     * @param capAttributeId 属性上限物品对应的属性ID，不是属性上限物品时为null
+     */
+    public record ItemMetadata(String affixCategory, EquipmentSlot slot, Identifier capAttributeId) {
+        public static final ItemMetadata NONE = new ItemMetadata(null, null, null);
+    }
+
+    /**
+     * 注册服务器启动事件，在注册表冻结后重建索引
+     */
+    public static void register() {
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> rebuild());
+    }
+
+    /**
+     * 获取物品的元数据
+     *
+     * @param item 物品
+     * @return 元数据，没有任何元数据时返回{@link ItemMetadata#NONE}
+     */
+    public static ItemMetadata get(Item item) {
+        Map<Item, ItemMetadata> current = index;
+        if (current == null) {
+            current = rebuild();
+        }
+
+        ItemMetadata metadata = current.get(item);
+        return metadata != null ? metadata : ItemMetadata.NONE;
+    }
+
+    /**
+     * 使索引失效，下次查询时重建
+     * 属性上限物品的配置变化后调用
+     */
+    public static void invalidate() {
+        index = null;
+    }
+
+    /**
+     * 遍历物品注册表重建索引，只保存有元数据的物品
+     */
+    public static synchronized Map<Item, ItemMetadata> rebuild() {
+        Map<Item, Identifier> capItems = new IdentityHashMap<>();
+        for (Map.Entry<String, String> entry : AttributeCapItemHandler.getCapItemMappings().entrySet()) {
+            Identifier itemId = Identifier.tryParse(entry.getKey());
+            if (itemId != null && Registries.ITEM.containsId(itemId)) {
+                capItems.put(Registries.ITEM.get(itemId), new Identifier(JustDying.MOD_ID, entry.getValue()));
+            }
+        }
+
+        Map<Item, ItemMetadata> built = new IdentityHashMap<>();
+        for (Item item : Registries.ITEM) {
+            String category = classifyAffixCategory(item);
+            EquipmentSlot slot = classifySlot(item);
+            Identifier capAttributeId = capItems.get(item);
+
+            if (category != null || slot != null || capAttributeId != null) {
+                built.put(item, new ItemMetadata(category, slot, capAttributeId));
+            }
+        }
+
+        index = built;
+        JustDying.LOGGER.debug("物品元数据索引已重建，共 {} 个物品", built.size());
+        return built;
+    }
+
+    /**
+     * 确定物品的词缀类型
+     */
+    private static String classifyAffixCategory(Item item) {
+        // 检查是否为武器
+        if (item instanceof SwordItem ||
+            item instanceof AxeItem ||
+            item == Items.BOW ||
+            item == Items.CROSSBOW ||
+            item == Items.TRIDENT) {
+            return Affix.ITEM_TYPE_WEAPON;
+        }
+
+        // 检查是否为防具
+        if (item instanceof ArmorItem) {
+            return Affix.ITEM_TYPE_ARMOR;
+        }
+
+        // 检查是否为工具
+        if (item instanceof PickaxeItem ||
+            item instanceof ShovelItem ||
+            item instanceof HoeItem) {
+            return Affix.ITEM_TYPE_TOOL;
+        }
+
+        // 盾牌视为防具
+        if (item == Items.SHIELD) {
+            return Affix.ITEM_TYPE_ARMOR;
+        }
+
+        return null;
+    }
+
+    /**
+     * 确定物品属性修饰符对应的装备槽位
+     */
+    private static EquipmentSlot classifySlot(Item item) {
+        // 检查是否为武器或工具
+        if (item instanceof SwordItem ||
+            item instanceof AxeItem ||
+            item instanceof PickaxeItem ||
+            item instanceof ShovelItem ||
+            item instanceof HoeItem ||
+            item == Items.BOW ||
+            item == Items.CROSSBOW ||
+            item == Items.TRIDENT) {
+            return EquipmentSlot.MAINHAND;
+        }
+
+        // 检查是否为盾牌
+        if (item == Items.SHIELD) {
+            return EquipmentSlot.OFFHAND;
+        }
+
+        // 检查是否为防具
+        if (item instanceof ArmorItem armorItem) {
+            return armorItem.getSlotType();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.justdie.mixin;
+
+import com.justdie.affix.AffixEventHandler;
+import net.minecraft.entity.LivingEntity;
+import net.minecraft.entity.damage.DamageSource;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+/**
+ * 伤害确认生效后触发攻击和受伤词缀
+ */
+@Mixin(LivingEntity.class)
+public class LivingEntityMixin {
+	@Inject(at = @At("RETURN"), method = "damage")
+	private void justdying$procAffixes(DamageSource source, float amount, CallbackInfoReturnable<Boolean> cir) {
+		LivingEntity entity = (LivingEntity) (Object) this;
+		if (cir.getReturnValueZ() && !entity.getWorld().isClient()) {
+			AffixEventHandler.onDamageApplied(entity, source);
+		}
+	}
+}
@@ -0,0 +1,21 @@
+package com.justdie.mixin;
+
+import com.justdie.boss.utils.SafeYCache;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+/**
+ * 方块变化时清除BOSS安全高度缓存中对应的列
+ */
+@Mixin(ServerWorld.class)
+public class ServerWorldMixin {
+	@Inject(at = @At("HEAD"), method = "onBlockChanged")
+	private void justdying$invalidateSafeY(BlockPos pos, BlockState oldBlock, BlockState newBlock, CallbackInfo info) {
+		SafeYCache.invalidate((ServerWorld) (Object) this, pos);
+	}
+}
@@ -0,0 +1,311 @@
+package com.justdie.network;
+
+import com.justdie.JustDying;
+import com.justdie.attribute.AttributeComponents;
+import com.justdie.attribute.AttributeHelper;
+import com.justdie.attribute.AttributeManager;
+import com.justdie.attribute.JustDyingAttribute;
+import com.justdie.attribute.LevelExchangeManager;
+import com.justdie.attribute.PlayerAttributeComponent;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 属性点操作请求的合并队列
+ * 网络线程收到的加点和等级兑换请求先按玩家累加到待处理状态中，每个玩家在服务器任务队列里最多只有一个待执行的结算任务，
+ * 结算时一次校验所有操作并只回复一个同步包
+ *
+ * 每个请求带有客户端的序号，回复的同步包携带已结算的最大序号，客户端据此丢弃已确认的预测并重放其余预测。
+ * 每个玩家的请求频率由令牌桶限制，超限的请求被丢弃，并在下次结算时回复全量同步以纠正客户端预测
+ */
+final class AttributeAllocationQueue {
+    // 令牌桶容量和每秒补充的令牌数
+    private static final double BURST_PACKETS = 40.0;
+    private static final double PACKETS_PER_SECOND = 20.0;
+    // 单个属性累计增量的上限，防止溢出
+    private static final int MAX_PENDING_DELTA = 10000;
+    // 一次结算中单次兑换的最大次数
+    private static final int MAX_PENDING_EXCHANGES = 64;
+
+    private static final Map<UUID, PendingAllocation> PENDING = new ConcurrentHashMap<>();
+
+    private AttributeAllocationQueue() {
+    }
+
+    /**
+     * 注册玩家断开连接时的清理
+     */
+    static void register() {
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> PENDING.remove(handler.getPlayer().getUuid()));
+    }
+
+    /**
+     * 把一组属性增量加入玩家的待处理队列，可以在网络线程调用
+     *
+     * @param server 服务器
+     * @param player 玩家
+     * @param seq 客户端请求序号，没有序号的旧请求为0
+     * @param indices 属性索引
+     * @param deltas 对应的增量，正数为加点，负数为减点
+     * @param count 有效条目数量
+     */
+    static void enqueue(MinecraftServer server, ServerPlayerEntity player, int seq, int[] indices, int[] deltas, int count) {
+        PendingAllocation pending = PENDING.computeIfAbsent(player.getUuid(), uuid -> new PendingAllocation());
+
+        synchronized (pending) {
+            if (accept(pending, player, seq)) {
+                for (int i = 0; i < count; i++) {
+                    pending.add(indices[i], deltas[i]);
+                }
+            }
+            if (!markScheduled(pending)) {
+                return;
+            }
+        }
+
+        schedule(server, player.getUuid());
+    }
+
+    /**
+     * 把一次等级兑换请求加入玩家的待处理队列，可以在网络线程调用
+     *
+     * @param server 服务器
+     * @param player 玩家
+     * @param seq 客户端请求序号，没有序号的旧请求为0
+     * @param max 是否兑换当前等级能负担的全部属性点
+     */
+    static void enqueueExchange(MinecraftServer server, ServerPlayerEntity player, int seq, boolean max) {
+        PendingAllocation pending = PENDING.computeIfAbsent(player.getUuid(), uuid -> new PendingAllocation());
+
+        synchronized (pending) {
+            if (accept(pending, player, seq)) {
+                if (max) {
+                    pending.exchangeMax = true;
+                } else if (pending.exchanges < MAX_PENDING_EXCHANGES) {
+                    pending.exchanges++;
+                }
+            }
+            if (!markScheduled(pending)) {
+                return;
+            }
+        }
+
+        schedule(server, player.getUuid());
+    }
+
+    /**
+     * 获取玩家已结算的最大请求序号，只在服务器线程调用
+     *
+     * @param player 玩家
+     * @return 已结算的最大序号，没有请求时为0
+     */
+    static int getAcknowledgedSeq(ServerPlayerEntity player) {
+        PendingAllocation pending = PENDING.get(player.getUuid());
+        return pending != null ? pending.acknowledgedSeq : 0;
+    }
+
+    /**
+     * 记录请求序号并检查频率限制，调用时需持有pending的锁
+     *
+     * @return 请求是否被接受
+     */
+    private static boolean accept(PendingAllocation pending, ServerPlayerEntity player, int seq) {
+        // 被丢弃的请求也要确认，客户端收到全量同步后放弃对应预测
+        pending.receivedSeq = Math.max(pending.receivedSeq, seq);
+
+        if (pending.tryAcquire(System.nanoTime())) {
+            return true;
+        }
+
+        // 丢弃请求，结算时以全量同步纠正客户端
+        pending.resync = true;
+        JustDying.LOGGER.debug("玩家 {} 的加点请求过于频繁，已丢弃", player.getName().getString());
+        return false;
+    }
+
+    /**
+     * 标记结算任务已排队，调用时需持有pending的锁
+     *
+     * @return 是否需要新排队一个结算任务
+     */
+    private static boolean markScheduled(PendingAllocation pending) {
+        if (pending.scheduled) {
+            return false;
+        }
+        pending.scheduled = true;
+        return true;
+    }
+
+    private static void schedule(MinecraftServer server, UUID uuid) {
+        server.execute(() -> flush(server, uuid));
+    }
+
+    /**
+     * 在服务器线程上结算玩家的待处理增量
+     * 断开连接后才到达的请求会重新创建待处理状态，玩家已不在线时在这里移除
+     */
+    private static void flush(MinecraftServer server, UUID uuid) {
+        PendingAllocation pending = PENDING.get(uuid);
+        if (pending == null) {
+            return;
+        }
+
+        // 重生后玩家实体会被替换，按UUID取当前实体
+        ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+        if (player == null) {
+            PENDING.remove(uuid, pending);
+            return;
+        }
+
+        int[] deltas;
+        boolean resync;
+        int exchanges;
+        boolean exchangeMax;
+        int seq;
+        synchronized (pending) {
+            deltas = pending.deltas;
+            resync = pending.resync;
+            exchanges = pending.exchanges;
+            exchangeMax = pending.exchangeMax;
+            seq = pending.receivedSeq;
+            pending.deltas = new int[deltas.length];
+            pending.resync = false;
+            pending.exchanges = 0;
+            pending.exchangeMax = false;
+            pending.scheduled = false;
+        }
+
+        try {
+            // 先兑换等级，兑换得到的点数可用于同一批加点
+            exchange(player, exchanges, exchangeMax);
+
+            int[] requested = new int[deltas.length];
+            int requestedCount = apply(player, deltas, requested);
+
+            pending.acknowledgedSeq = seq;
+
+            // 即使没有任何变化也要回复，客户端需要确认序号
+            if (resync) {
+                AttributeUpdatePacket.syncAllAttributesToClient(player);
+            } else if (requestedCount > 0) {
+                AttributeUpdatePacket.syncAttributeDeltasToClient(player, requested, requestedCount);
+            } else {
+                AttributeUpdatePacket.syncPointsToClient(player);
+            }
+        } catch (Exception e) {
+            JustDying.LOGGER.error("结算玩家 {} 的加点请求时发生错误: {}", player.getName().getString(), e.getMessage());
+        }
+    }
+
+    /**
+     * 执行待处理的等级兑换
+     */
+    private static void exchange(ServerPlayerEntity player, int exchanges, boolean exchangeMax) {
+        for (int i = 0; i < exchanges; i++) {
+            if (!LevelExchangeManager.exchangeLevelForPoint(player)) {
+                JustDying.LOGGER.debug("玩家 {} 无法兑换等级", player.getName().getString());
+                break;
+            }
+        }
+
+        if (exchangeMax && LevelExchangeManager.exchangeMaxLevelsForPoints(player) <= 0) {
+            JustDying.LOGGER.debug("玩家 {} 无法兑换等级", player.getName().getString());
+        }
+    }
+
+    /**
+     * 一次校验并应用所有增量
+     * 先处理减点以返还属性点，再按可用点数处理加点
+     *
+     * @param player 玩家
+     * @param deltas 按属性索引排列的增量
+     * @param requested 输出参数，写入请求涉及的属性索引
+     * @return 请求涉及的属性数量，客户端需要这些属性的权威值来纠正预测
+     */
+    private static int apply(ServerPlayerEntity player, int[] deltas, int[] requested) {
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        int availablePoints = AttributeHelper.getAvailablePoints(player);
+        int initialPoints = availablePoints;
+        int requestedCount = 0;
+
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] == 0) {
+                continue;
+            }
+            requested[requestedCount++] = i;
+
+            if (deltas[i] < 0) {
+                JustDyingAttribute attribute = AttributeManager.getAttributeByIndex(i);
+                int currentValue = component.getAttributeValue(i);
+                int amount = Math.min(-deltas[i], currentValue - attribute.getMinValue());
+                if (amount > 0) {
+                    component.setAttributeValue(i, currentValue - amount);
+                    availablePoints += amount;
+                }
+            }
+        }
+
+        for (int i = 0; i < deltas.length; i++) {
+            if (deltas[i] <= 0 || availablePoints <= 0) {
+                continue;
+            }
+
+            JustDyingAttribute attribute = AttributeManager.getAttributeByIndex(i);
+            int currentValue = component.getAttributeValue(i);
+            int amount = Math.min(Math.min(deltas[i], attribute.getMaxValue() - currentValue), availablePoints);
+            if (amount > 0) {
+                component.setAttributeValue(i, currentValue + amount);
+                availablePoints -= amount;
+            }
+        }
+
+        if (availablePoints != initialPoints) {
+            AttributeHelper.setAvailablePoints(player, availablePoints);
+        }
+
+        if (JustDying.getConfig().debug) {
+            JustDying.LOGGER.debug("结算玩家 {} 的加点请求：{} 个属性，可用点数 {} -> {}",
+                    player.getName().getString(), requestedCount, initialPoints, availablePoints);
+        }
+
+        return requestedCount;
+    }
+
+    /**
+     * 单个玩家的待处理操作和令牌桶状态，除acknowledgedSeq外访问时需持有对象锁
+     */
+    private static final class PendingAllocation {
+        int[] deltas = new int[AttributeManager.getAttributeCount()];
+        int exchanges;
+        boolean exchangeMax;
+        boolean scheduled;
+        boolean resync;
+        int receivedSeq;
+        // 只在服务器线程读写
+        int acknowledgedSeq;
+        private double tokens = BURST_PACKETS;
+        private long lastRefill = System.nanoTime();
+
+        boolean tryAcquire(long now) {
+            tokens = Math.min(BURST_PACKETS, tokens + (now - lastRefill) * PACKETS_PER_SECOND / 1_000_000_000.0);
+            lastRefill = now;
+            if (tokens < 1.0) {
+                return false;
+            }
+            tokens -= 1.0;
+            return true;
+        }
+
+        void add(int index, int delta) {
+            if (index < 0 || index >= deltas.length) {
+                return;
+            }
+            deltas[index] = Math.max(-MAX_PENDING_DELTA, Math.min(MAX_PENDING_DELTA, deltas[index] + delta));
+        }
+    }
+}
@@ -1,33 +1,42 @@
 package com.justdie.network;
 
 import com.justdie.JustDying;
+import com.justdie.attribute.AttributeComponents;
 import com.justdie.attribute.AttributeHelper;
 import com.justdie.attribute.AttributeManager;
-import com.justdie.attribute.LevelExchangeManager;
+import com.justdie.attribute.PlayerAttributeComponent;
 import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 
 /**
  * 服务端属性更新网络包处理器
  * 用于处理来自客户端的属性更新请求，包括属性增减、等级兑换和属性同步
+ *
+ * 同步协议：玩家加入时先发送一次属性索引表（按索引顺序排列的属性ID），
+ * 之后全量同步只发送一个变长整数数组，增量同步只发送变化属性的索引和新值。
+ * 每个同步包以服务器已结算的客户端请求序号开头，供客户端校正预测
  */
 public class AttributeUpdatePacket {
     // 常量定义
-    private static final String PACKET_DEBUG_FORMAT = "{} 玩家 {} 的属性 {} 为 {}";
-    private static final String EXCHANGE_DEBUG_FORMAT = "玩家 {} 兑换等级获得属性点";
-    private static final String SYNC_DEBUG_FORMAT = "收到玩家 {} 的属性 {} 同步请求";
+    private static final String EXCHANGE_DEBUG_FORMAT = "收到玩家 {} 的等级兑换请求";
+    private static final String SYNC_DEBUG_FORMAT = "收到玩家 {} 的属性同步请求";
     private static final String ERROR_PLAYER_NULL = "玩家对象为空，无法处理属性更新";
     private static final String ERROR_ATTRIBUTE_NULL = "属性ID为空，无法处理属性更新";
-    private static final String ERROR_PACKET_PROCESSING = "处理网络包时发生错误: {}";
     
     // 网络包标识符
     public static final Identifier INCREASE_ATTRIBUTE_ID = JustDying.id("increase_attribute");
     public static final Identifier DECREASE_ATTRIBUTE_ID = JustDying.id("decrease_attribute");
-    public static final Identifier SYNC_ATTRIBUTES_ID = JustDying.id("sync_attributes");
+    public static final Identifier ALLOCATE_ATTRIBUTES_ID = JustDying.id("allocate_attributes");
+    public static final Identifier ATTRIBUTE_INDEX_ID = JustDying.id("attribute_index");
+    public static final Identifier SYNC_ALL_ATTRIBUTES_ID = JustDying.id("sync_all_attributes");
+    public static final Identifier SYNC_ATTRIBUTE_DELTA_ID = JustDying.id("sync_attribute_delta");
     public static final Identifier EXCHANGE_LEVEL_ID = JustDying.id("exchange_level");
+    public static final Identifier EXCHANGE_LEVEL_MAX_ID = JustDying.id("exchange_level_max");
+    public static final Identifier SYNC_POINTS_ID = JustDying.id("sync_points");
     public static final Identifier SYNC_REQUEST_ID = JustDying.id("sync_request");
     
     /**
@@ -35,6 +44,10 @@ public class AttributeUpdatePacket {
      */
     public static void register() {
         try {
+            // 注册批量加点处理器
+            registerAllocateAttributesHandler();
+            AttributeAllocationQueue.register();
+            
             // 注册增加属性处理器
             registerIncreaseAttributeHandler();
             
@@ -44,6 +57,9 @@ public class AttributeUpdatePacket {
             // 注册等级兑换属性点处理器
             registerExchangeLevelHandler();
             
+            // 注册批量等级兑换处理器
+            registerExchangeMaxLevelHandler();
+            
             // 注册同步请求处理器
             registerSyncRequestHandler();
             
@@ -53,56 +69,36 @@ public class AttributeUpdatePacket {
         }
     }
     
+    /**
+     * 注册批量加点处理器
+     * 包内为请求序号和若干组（属性索引，增量），请求在网络线程上解析后交给合并队列
+     */
+    private static void registerAllocateAttributesHandler() {
+        ServerPlayNetworking.registerGlobalReceiver(ALLOCATE_ATTRIBUTES_ID, (server, player, handler, buf, responseSender) -> {
+            int seq = buf.readVarInt();
+            int count = buf.readVarInt();
+            if (count <= 0 || count > AttributeManager.getAttributeCount()) {
+                JustDying.LOGGER.warn("玩家 {} 发送了无效的批量加点请求，条目数: {}", player.getName().getString(), count);
+                return;
+            }
+            
+            int[] indices = new int[count];
+            int[] deltas = new int[count];
+            for (int i = 0; i < count; i++) {
+                indices[i] = buf.readVarInt();
+                deltas[i] = buf.readVarInt();
+            }
+            
+            AttributeAllocationQueue.enqueue(server, player, seq, indices, deltas, count);
+        });
+    }
+    
     /**
      * 注册增加属性处理器
      */
     private static void registerIncreaseAttributeHandler() {
         ServerPlayNetworking.registerGlobalReceiver(INCREASE_ATTRIBUTE_ID, (server, player, handler, buf, responseSender) -> {
-            String attributeId = buf.readString();
-            
-            // 在服务器线程上执行属性更新
-            server.execute(() -> {
-                try {
-                    // 安全性检查：确保玩家和属性ID有效
-                    if (player == null) {
-                        JustDying.LOGGER.warn(ERROR_PLAYER_NULL);
-                        return;
-                    }
-                    
-                    if (attributeId == null || attributeId.isEmpty()) {
-                        JustDying.LOGGER.warn(ERROR_ATTRIBUTE_NULL);
-                        return;
-                    }
-                    
-                    // 检查玩家是否有足够的点数
-                    int availablePoints = AttributeHelper.getAvailablePoints(player);
-                    if (availablePoints <= 0) {
-                        JustDying.LOGGER.debug("玩家 {} 没有足够的属性点用于增加属性", player.getName().getString());
-                        return;
-                    }
-                    
-                    Identifier id = new Identifier(attributeId);
-                    int currentValue = AttributeHelper.getAttributeValue(player, id);
-                    int maxValue = AttributeHelper.getAttributeMaxValue(id);
-                    
-                    // 检查是否可以增加属性
-                    if (currentValue < maxValue) {
-                        // 增加属性值并减少可用点数
-                        AttributeHelper.setAttributeValue(player, id, currentValue + 1);
-                        AttributeHelper.usePoints(player, 1);
-                        
-                        logAttributeChange("增加", player, attributeId, currentValue + 1);
-                        
-                        // 同步到客户端
-                        syncAttributesToClient(player, id);
-                    } else {
-                        JustDying.LOGGER.debug("玩家 {} 的属性 {} 已达到最大值 {}", 
-                                player.getName().getString(), attributeId, maxValue);
-                    }
-                } catch (Exception e) {
-                    JustDying.LOGGER.error(ERROR_PACKET_PROCESSING, e.getMessage());
-                }
-            });
+            enqueueSingle(server, player, buf.readString(), 1);
         });
     }
     
@@ -111,78 +107,65 @@ public class AttributeUpdatePacket {
      */
     private static void registerDecreaseAttributeHandler() {
         ServerPlayNetworking.registerGlobalReceiver(DECREASE_ATTRIBUTE_ID, (server, player, handler, buf, responseSender) -> {
-            String attributeId = buf.readString();
-            
-            // 在服务器线程上执行属性更新
-            server.execute(() -> {
-                try {
-                    // 安全性检查：确保玩家和属性ID有效
-                    if (player == null) {
-                        JustDying.LOGGER.warn(ERROR_PLAYER_NULL);
-                        return;
-                    }
-                    
-                    if (attributeId == null || attributeId.isEmpty()) {
-                        JustDying.LOGGER.warn(ERROR_ATTRIBUTE_NULL);
-                        return;
-                    }
-                    
-                    Identifier id = new Identifier(attributeId);
-                    int currentValue = AttributeHelper.getAttributeValue(player, id);
-                    int minValue = AttributeHelper.getAttributeMinValue(id);
-                    
-                    // 检查是否可以减少属性
-                    if (currentValue > minValue) {
-                        // 减少属性值并增加可用点数
-                        AttributeHelper.setAttributeValue(player, id, currentValue - 1);
-                        AttributeHelper.addPoints(player, 1);
-                        
-                        logAttributeChange("减少", player, attributeId, currentValue - 1);
-                        
-                        // 同步到客户端
-                        syncAttributesToClient(player, id);
-                    } else {
-                        JustDying.LOGGER.debug("玩家 {} 的属性 {} 已达到最小值 {}", 
-                                player.getName().getString(), attributeId, minValue);
-                    }
-                } catch (Exception e) {
-                    JustDying.LOGGER.error(ERROR_PACKET_PROCESSING, e.getMessage());
-                }
-            });
+            enqueueSingle(server, player, buf.readString(), -1);
         });
     }
     
+    /**
+     * 把单个属性的增减请求转换为增量并交给合并队列
+     * 
+     * @param server 服务器
+     * @param player 玩家
+     * @param attributeId 属性ID
+     * @param delta 增量
+     */
+    private static void enqueueSingle(MinecraftServer server, ServerPlayerEntity player, String attributeId, int delta) {
+        if (player == null) {
+            JustDying.LOGGER.warn(ERROR_PLAYER_NULL);
+            return;
+        }
+        
+        if (attributeId == null || attributeId.isEmpty()) {
+            JustDying.LOGGER.warn(ERROR_ATTRIBUTE_NULL);
+            return;
+        }
+        
+        Identifier id = Identifier.tryParse(attributeId);
+        int index = id != null ? AttributeManager.getAttributeIndex(id) : -1;
+        if (index < 0) {
+            JustDying.LOGGER.debug("玩家 {} 请求了不存在的属性 {}", player.getName().getString(), attributeId);
+            return;
+        }
+        
+        // 旧的单项请求没有序号
+        AttributeAllocationQueue.enqueue(server, player, 0, new int[] { index }, new int[] { delta }, 1);
+    }
+    
     /**
      * 注册等级兑换属性点处理器
      */
     private static void registerExchangeLevelHandler() {
         ServerPlayNetworking.registerGlobalReceiver(EXCHANGE_LEVEL_ID, (server, player, handler, buf, responseSender) -> {
-            // 在服务器线程上执行兑换
-            server.execute(() -> {
-                try {
-                    // 安全性检查：确保玩家有效
-                    if (player == null) {
-                        JustDying.LOGGER.warn(ERROR_PLAYER_NULL);
-                        return;
-                    }
-                    
-                    // 尝试兑换等级为属性点
-                    boolean success = LevelExchangeManager.exchangeLevelForPoint(player);
-                    
-                    if (success) {
-                        if (JustDying.getConfig().debug) {
-                            JustDying.LOGGER.debug(EXCHANGE_DEBUG_FORMAT, player.getName().getString());
-                        }
-                        
-                        // 同步所有属性到客户端
-                        syncAllAttributesToClient(player);
-                    } else {
-                        JustDying.LOGGER.debug("玩家 {} 无法兑换等级", player.getName().getString());
-                    }
-                } catch (Exception e) {
-                    JustDying.LOGGER.error(ERROR_PACKET_PROCESSING, e.getMessage());
-                }
-            });
+            int seq = buf.readVarInt();
+            
+            // 与加点请求在同一队列中按序结算
+            AttributeAllocationQueue.enqueueExchange(server, player, seq, false);
+            
+            if (JustDying.getConfig().debug) {
+                JustDying.LOGGER.debug(EXCHANGE_DEBUG_FORMAT, player.getName().getString());
+            }
+        });
+    }
+    
+    /**
+     * 注册批量等级兑换处理器，一次兑换玩家能负担的全部属性点
+     */
+    private static void registerExchangeMaxLevelHandler() {
+        ServerPlayNetworking.registerGlobalReceiver(EXCHANGE_LEVEL_MAX_ID, (server, player, handler, buf, responseSender) -> {
+            int seq = buf.readVarInt();
+            
+            // 所有兑换在结算时完成，只回复一次同步
+            AttributeAllocationQueue.enqueueExchange(server, player, seq, true);
         });
     }
     
@@ -191,74 +174,105 @@ public class AttributeUpdatePacket {
      */
     private static void registerSyncRequestHandler() {
         ServerPlayNetworking.registerGlobalReceiver(SYNC_REQUEST_ID, (server, player, handler, buf, responseSender) -> {
-            String attributeId = buf.readString();
-            
             // 在服务器线程上执行同步
             server.execute(() -> {
-                // 安全性检查：确保玩家和属性ID有效
-                if (player == null || attributeId == null || attributeId.isEmpty()) {
+                if (player == null) {
                     return;
                 }
                 
-                Identifier id = new Identifier(attributeId);
-                
-                // 同步到客户端
-                syncAttributesToClient(player, id);
+                // 一次请求回复一个全量同步包
+                syncAllAttributesToClient(player);
                 
                 if (JustDying.getConfig().debug) {
-                    JustDying.LOGGER.debug(SYNC_DEBUG_FORMAT, player.getName().getString(), attributeId);
+                    JustDying.LOGGER.debug(SYNC_DEBUG_FORMAT, player.getName().getString());
                 }
             });
         });
     }
     
     /**
-     * 记录属性变更日志
+     * 发送属性索引表，客户端据此把索引映射回属性ID
+     * 玩家加入时发送一次，之后的同步包只携带索引
      * 
-     * @param action 操作类型（增加/减少）
      * @param player 玩家
-     * @param attributeId 属性ID
-     * @param newValue 新的属性值
      */
-    private static void logAttributeChange(String action, ServerPlayerEntity player, String attributeId, int newValue) {
-        if (JustDying.getConfig().debug) {
-            JustDying.LOGGER.debug(PACKET_DEBUG_FORMAT, 
-                    action, player.getName().getString(), attributeId, newValue);
+    public static void sendAttributeIndex(ServerPlayerEntity player) {
+        if (player == null) {
+            return;
         }
+        
+        int count = AttributeManager.getAttributeCount();
+        PacketByteBuf buf = PacketByteBufs.create();
+        buf.writeVarInt(count);
+        for (int i = 0; i < count; i++) {
+            buf.writeIdentifier(AttributeManager.getAttributeByIndex(i).getId());
+        }
+        
+        ServerPlayNetworking.send(player, ATTRIBUTE_INDEX_ID, buf);
     }
     
     /**
-     * 同步属性到客户端
+     * 同步所有属性到客户端
+     * 可用点数和全部属性值按索引顺序写入同一个包
      * 
      * @param player 玩家
-     * @param attributeId 属性ID
      */
-    private static void syncAttributesToClient(ServerPlayerEntity player, Identifier attributeId) {
-        if (player == null || attributeId == null) {
+    public static void syncAllAttributesToClient(ServerPlayerEntity player) {
+        if (player == null) {
             return;
         }
         
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        int count = AttributeManager.getAttributeCount();
+        
         PacketByteBuf buf = PacketByteBufs.create();
-        buf.writeString(attributeId.toString());
-        buf.writeInt(AttributeHelper.getAttributeValue(player, attributeId));
-        buf.writeInt(AttributeHelper.getAvailablePoints(player));
+        buf.writeVarInt(AttributeAllocationQueue.getAcknowledgedSeq(player));
+        buf.writeVarInt(AttributeHelper.getAvailablePoints(player));
+        buf.writeVarInt(count);
+        for (int i = 0; i < count; i++) {
+            buf.writeVarInt(component.getAttributeValue(i));
+        }
         
-        ServerPlayNetworking.send(player, SYNC_ATTRIBUTES_ID, buf);
+        ServerPlayNetworking.send(player, SYNC_ALL_ATTRIBUTES_ID, buf);
     }
     
     /**
-     * 同步所有属性到客户端
+     * 增量同步多个属性到客户端
+     * 包内为可用点数加上若干组（索引，新值）
      * 
      * @param player 玩家
+     * @param indices 变化的属性索引
+     * @param count 有效索引数量
      */
-    private static void syncAllAttributesToClient(ServerPlayerEntity player) {
+    public static void syncAttributeDeltasToClient(ServerPlayerEntity player, int[] indices, int count) {
         if (player == null) {
             return;
         }
         
-        // 同步所有属性
-        AttributeManager.getAllAttributes().forEach(attribute -> {
-            syncAttributesToClient(player, attribute.getId());
-        });
+        PlayerAttributeComponent component = AttributeComponents.PLAYER_ATTRIBUTES.get(player);
+        
+        PacketByteBuf buf = PacketByteBufs.create();
+        buf.writeVarInt(AttributeAllocationQueue.getAcknowledgedSeq(player));
+        buf.writeVarInt(AttributeHelper.getAvailablePoints(player));
+        buf.writeVarInt(count);
+        for (int i = 0; i < count; i++) {
+            buf.writeVarInt(indices[i]);
+            buf.writeVarInt(component.getAttributeValue(indices[i]));
+        }
+        
+        ServerPlayNetworking.send(player, SYNC_ATTRIBUTE_DELTA_ID, buf);
+    }
+    
+    /**
+     * 只同步可用属性点到客户端
+     * 
+     * @param player 玩家
+     */
+    static void syncPointsToClient(ServerPlayerEntity player) {
+        PacketByteBuf buf = PacketByteBufs.create();
+        buf.writeVarInt(AttributeAllocationQueue.getAcknowledgedSeq(player));
+        buf.writeVarInt(AttributeHelper.getAvailablePoints(player));
+        
+        ServerPlayNetworking.send(player, SYNC_POINTS_ID, buf);
     }
-} 
\ No newline at end of file
+} 